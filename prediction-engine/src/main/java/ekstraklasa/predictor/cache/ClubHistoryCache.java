@@ -0,0 +1,85 @@
+package ekstraklasa.predictor.cache;
+
+import ekstraklasa.predictor.model.ClubStandingHistoryPage;
+import ekstraklasa.predictor.model.ClubStrengthHistoryPage;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent.SnapshotKind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ograniczony (LRU) cache stron historii drużyn (klucz: drużyna, kursor, limit) - wykresy odpytują
+ * w kółko te same drużyny, więc najczęściej oglądane strony nie trafiają do bazy.
+ *
+ * Nowy snapshot danego rodzaju czyści jego strony. Licznik generacji pilnuje, żeby strona policzona
+ * przed wyczyszczeniem nie wróciła do cache.
+ */
+@Slf4j
+@Component
+public class ClubHistoryCache {
+
+    @Value("${history.cache.max-entries:256}")
+    private int maxEntries;
+
+    private final Map<String, ClubStandingHistoryPage> standings = lru();
+    private final Map<String, ClubStrengthHistoryPage> strengths = lru();
+    private long standingsGeneration;
+    private long strengthsGeneration;
+
+    public ClubStandingHistoryPage getStandings(String key, Supplier<ClubStandingHistoryPage> loader) {
+        long generation;
+        synchronized (this) {
+            ClubStandingHistoryPage cached = standings.get(key);
+            if (cached != null) return cached;
+            generation = standingsGeneration;
+        }
+        ClubStandingHistoryPage page = loader.get();
+        synchronized (this) {
+            if (generation == standingsGeneration) standings.put(key, page);
+        }
+        return page;
+    }
+
+    public ClubStrengthHistoryPage getStrengths(String key, Supplier<ClubStrengthHistoryPage> loader) {
+        long generation;
+        synchronized (this) {
+            ClubStrengthHistoryPage cached = strengths.get(key);
+            if (cached != null) return cached;
+            generation = strengthsGeneration;
+        }
+        ClubStrengthHistoryPage page = loader.get();
+        synchronized (this) {
+            if (generation == strengthsGeneration) strengths.put(key, page);
+        }
+        return page;
+    }
+
+    public synchronized void invalidate(SnapshotKind kind) {
+        switch (kind) {
+            case SIMULATED_STANDINGS -> {
+                standings.clear();
+                standingsGeneration++;
+            }
+            case TEAM_STRENGTHS -> {
+                strengths.clear();
+                strengthsGeneration++;
+            }
+        }
+        log.debug("Club history cache invalidated for {}", kind);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private <V> Map<String, V> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
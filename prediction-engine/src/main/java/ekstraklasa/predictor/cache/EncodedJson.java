@@ -0,0 +1,60 @@
+package ekstraklasa.predictor.cache;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Odpowiedź JSON zserializowana raz na snapshot: bajty JSON, opcjonalnie wersja gzip (null - wyłączona)
+ * i słaby ETag ze skrótu treści (ten sam dla obu kodowań).
+ */
+public record EncodedJson(byte[] json, byte[] gzip, String etag) {
+
+    public static EncodedJson of(JsonMapper jsonMapper, Object body, boolean gzipEnabled) {
+        byte[] json = jsonMapper.writeValueAsBytes(body);
+        return new EncodedJson(json, gzipEnabled ? gzip(json) : null, etag(json));
+    }
+
+    /**
+     * Czy nagłówek If-None-Match (lista ETagów albo *) wskazuje tę wersję - porównanie słabe.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(opaque(etag))) return true;
+        }
+        return false;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ekstraklasa.predictor.cache;
+
+import ekstraklasa.predictor.model.SnapshotCommittedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport w obrębie jednej instancji: zdarzenie trafia synchronicznie do słuchaczy w tym samym procesie.
+ * Domyślny (jedna instancja, testy lokalne) - pozostałe instancje zobaczą snapshot dopiero przy odpytywaniu.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class LocalSnapshotInvalidationTransport implements SnapshotInvalidationTransport {
+
+    private final List<Consumer<SnapshotCommittedEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(SnapshotCommittedEvent event) {
+        log.debug("Publishing {} locally", event);
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<SnapshotCommittedEvent> listener) {
+        listeners.add(listener);
+    }
+}
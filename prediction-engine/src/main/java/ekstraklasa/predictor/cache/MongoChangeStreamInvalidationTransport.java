@@ -0,0 +1,116 @@
+package ekstraklasa.predictor.cache;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent.SnapshotKind;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport oparty o change streams Mongo (wymaga replica setu): każda instancja obserwuje wstawienia
+ * do kolekcji snapshotów, więc zapis na dowolnym węźle przełącza cache wszędzie. Sam zapis jest zdarzeniem -
+ * publish niczego nie wysyła.
+ *
+ * Po zerwaniu strumienia wznawia od ostatniego resume tokena; zdarzenia utracone mimo to nadrabia odpytywanie
+ * cache (cache.refresh.ms).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "mongo-change-stream")
+public class MongoChangeStreamInvalidationTransport implements SnapshotInvalidationTransport {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${cache.invalidation.retry-ms:5000}")
+    private long retryMs;
+
+    private final List<Consumer<SnapshotCommittedEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> watchers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    @Override
+    public void publish(SnapshotCommittedEvent event) {
+        log.debug("{} will be delivered by the change stream", event);
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<SnapshotCommittedEvent> listener) {
+        listeners.add(listener);
+        if (watchers.isEmpty()) {
+            watchers.add(watch(SnapshotKind.SIMULATED_STANDINGS, mongoTemplate.getCollectionName(SimulatedStandingSnapshotEntity.class)));
+            watchers.add(watch(SnapshotKind.TEAM_STRENGTHS, mongoTemplate.getCollectionName(TeamStrengthSnapshotEntity.class)));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        watchers.forEach(Thread::interrupt);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private Thread watch(SnapshotKind kind, String collectionName) {
+        return Thread.ofVirtual().name("snapshot-change-stream-" + collectionName).start(() -> {
+            BsonDocument resumeToken = null;
+            while (running) {
+                try {
+                    var stream = mongoTemplate.getCollection(collectionName)
+                            .watch(List.of(
+                                    Aggregates.match(Filters.eq("operationType", "insert")),
+                                    // tylko timestamp - bez wyników drużyn
+                                    Aggregates.project(Projections.include("operationType", "ns", "documentKey", "fullDocument.timestamp"))));
+                    if (resumeToken != null) stream = stream.resumeAfter(resumeToken);
+
+                    try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                        log.info("Watching {} for new snapshots", collectionName);
+                        while (running) {
+                            ChangeStreamDocument<Document> change = cursor.next();
+                            resumeToken = change.getResumeToken();
+                            Date timestamp = change.getFullDocument() == null ? null : change.getFullDocument().getDate("timestamp");
+                            if (timestamp != null) dispatch(new SnapshotCommittedEvent(kind, timestamp.toInstant()));
+                        }
+                    }
+                } catch (Exception e) {
+                    if (!running) return;
+                    log.warn("Change stream on {} failed, retrying in {} ms: {}", collectionName, retryMs, e.getMessage());
+                    try {
+                        Thread.sleep(retryMs);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    private void dispatch(SnapshotCommittedEvent event) {
+        for (Consumer<SnapshotCommittedEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.error("Snapshot listener failed for {}", event, e);
+            }
+        }
+    }
+}
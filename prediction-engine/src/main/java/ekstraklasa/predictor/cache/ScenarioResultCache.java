@@ -0,0 +1,99 @@
+package ekstraklasa.predictor.cache;
+
+import ekstraklasa.predictor.model.ScenarioResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ograniczony (LRU) cache wyników scenariuszy what-if dla bieżącego snapshotu.
+ *
+ * Klucz to kanoniczny hash scenariusza liczony przez ScenarioService. Zmiana snapshotu czyści cały cache.
+ * Identyczne zapytania w trakcie liczenia dostają ten sam CompletableFuture - scenariusz liczony jest raz.
+ */
+@Slf4j
+@Component
+public class ScenarioResultCache {
+
+    @Value("${consumable.scenario.cache.max-entries:256}")
+    private int maxEntries;
+
+    private final Map<String, ScenarioResponse> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScenarioResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, CompletableFuture<ScenarioResponse>> inFlight = new ConcurrentHashMap<>();
+    private Instant snapshotTimestamp;
+
+    /**
+     * Zwraca wynik z cache, dołącza do trwającego liczenia tego samego klucza albo uruchamia task na executorze.
+     *
+     * @throws RejectedExecutionException gdy executor nie przyjmuje więcej zadań
+     */
+    public CompletableFuture<ScenarioResponse> getOrCompute(Instant snapshot,
+                                                            String key,
+                                                            Callable<ScenarioResponse> task,
+                                                            Executor executor) {
+        ScenarioResponse cached = get(snapshot, key);
+        if (cached != null) {
+            log.debug("Scenario {} served from cache", key);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<ScenarioResponse> created = new CompletableFuture<>();
+        CompletableFuture<ScenarioResponse> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            log.debug("Scenario {} joined in-flight run", key);
+            return running;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(task.call());
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            throw e;
+        }
+
+        // najpierw wynik do cache, potem zdjęcie z inFlight - równoległe zapytanie zawsze trafi na jedno z nich
+        created.whenComplete((response, error) -> {
+            if (response != null) put(snapshot, key, response);
+            inFlight.remove(key, created);
+        });
+        return created;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private synchronized ScenarioResponse get(Instant snapshot, String key) {
+        if (!Objects.equals(snapshot, snapshotTimestamp)) {
+            // nowy snapshot - wyniki starych scenariuszy są nieaktualne
+            results.clear();
+            snapshotTimestamp = snapshot;
+            return null;
+        }
+        return results.get(key);
+    }
+
+    private synchronized void put(Instant snapshot, String key, ScenarioResponse response) {
+        if (!Objects.equals(snapshot, snapshotTimestamp)) return;
+        results.put(key, response);
+    }
+}
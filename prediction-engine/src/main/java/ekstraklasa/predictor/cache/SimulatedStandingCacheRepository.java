@@ -1,31 +1,66 @@
 package ekstraklasa.predictor.cache;
 
 import ekstraklasa.predictor.entity.SimulatedStandingEntity;
+import ekstraklasa.predictor.entity.SimulatedStandingEntry;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.model.PackedHistogram;
+import ekstraklasa.predictor.model.RangePredictionModel;
+import ekstraklasa.predictor.model.SimulationResult;
 import ekstraklasa.predictor.model.TablePredictionModel;
 import ekstraklasa.predictor.repository.SimulatedStandingRepository;
+import ekstraklasa.predictor.repository.SimulatedStandingSnapshotRepository;
+import ekstraklasa.predictor.repository.SnapshotTimestamp;
+import ekstraklasa.predictor.service.SnapshotMigrationService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
 
 import jakarta.annotation.PostConstruct;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class SimulatedStandingCacheRepository {
+    private final SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository;
+    // stary układ (dokument per drużyna) - tylko do czasu migracji
     private final SimulatedStandingRepository simulatedStandingRepository;
+    private final JsonMapper jsonMapper;
     private final AtomicReference<List<TablePredictionModel>> cache = new AtomicReference<>(new ArrayList<>());
+    // cache zserializowany raz na snapshot - GET /api/table-prediction wysyła gotowe bajty
+    private final AtomicReference<EncodedJson> encoded;
+    // zdekodowane histogramy ostatniego snapshotu (kod drużyny -> histogramy)
+    private final AtomicReference<Map<String, TeamHistograms>> histograms = new AtomicReference<>(Map.of());
+    // timestamp snapshotu aktualnie trzymanego w cache (null - pusty cache)
+    private Instant loadedTimestamp;
 
-    public SimulatedStandingCacheRepository(SimulatedStandingRepository simulatedStandingRepository) {
+    @Value("${cache.response.gzip:true}")
+    private boolean gzipEnabled;
+
+    /**
+     * Histogramy jednej drużyny: positions[i] -> pozycja i + 1, points[p] -> p punktów.
+     */
+    private record TeamHistograms(Instant timestamp, int simulations, int[] positions, int[] points) {
+    }
+
+    public SimulatedStandingCacheRepository(SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository,
+                                            SimulatedStandingRepository simulatedStandingRepository,
+                                            JsonMapper jsonMapper) {
+        this.simulatedStandingSnapshotRepository = simulatedStandingSnapshotRepository;
         this.simulatedStandingRepository = simulatedStandingRepository;
+        this.jsonMapper = jsonMapper;
+        this.encoded = new AtomicReference<>(EncodedJson.of(jsonMapper, List.of(), false));
     }
 
     @PostConstruct
@@ -41,6 +76,33 @@ public class SimulatedStandingCacheRepository {
         return cache.get();
     }
 
+    public EncodedJson getEncoded() {
+        return encoded.get();
+    }
+
+    /**
+     * Prawdopodobieństwo zajęcia pozycji z zakresu [fromPosition, toPosition] wg zapisanych histogramów.
+     */
+    public List<RangePredictionModel> getPositionRange(int fromPosition, int toPosition) {
+        return range(fromPosition, toPosition, TeamHistograms::positions, 1);
+    }
+
+    /**
+     * Prawdopodobieństwo zakończenia sezonu z liczbą punktów z zakresu [minPoints, maxPoints].
+     */
+    public List<RangePredictionModel> getPointsRange(int minPoints, int maxPoints) {
+        return range(minPoints, maxPoints, TeamHistograms::points, 0);
+    }
+
+    /**
+     * Przełączenie na snapshot z SnapshotCommittedEvent; wersje nie nowsze niż załadowana są pomijane.
+     */
+    public synchronized void refreshTo(Instant timestamp) {
+        if (loadedTimestamp != null && !timestamp.isAfter(loadedTimestamp)) return;
+        refresh();
+    }
+
+    // zapasowe odpytywanie - nowe snapshoty przychodzą przez SnapshotInvalidationTransport
     @Scheduled(fixedRateString = "${cache.refresh.ms:3600000}") // default 1h
     public void scheduledRefresh() {
         try {
@@ -51,55 +113,116 @@ public class SimulatedStandingCacheRepository {
     }
 
     /**
-     * Właściwe odświeżenie cache: pobiera wszystkie encje, wybiera najstarszy timestamp i zachowuje
-     * tylko encje z tym timestampem (earliest). Mapuje do TablePredictionModel.
+     * Właściwe odświeżenie cache. Najpierw projekcja samego timestampu najnowszego snapshotu (malejący indeks) -
+     * jeśli nie zmienił się od ostatniego odświeżenia, nic nie jest ładowane. Inaczej jeden odczyt punktowy
+     * dokumentu snapshotu, więc koszt nie rośnie z historią. Dopóki migracja nie przeniosła żadnego snapshotu,
+     * czyta najnowszy snapshot ze starych dokumentów per drużyna.
      */
     public synchronized void refresh() {
+        Optional<Instant> newest = simulatedStandingSnapshotRepository.findFirstByOrderByTimestampDesc()
+                .or(simulatedStandingRepository::findFirstByTimestampNotNullOrderByTimestampDesc)
+                .map(SnapshotTimestamp::getTimestamp);
+        if (newest.isPresent() && newest.get().equals(loadedTimestamp)) {
+            log.debug("Simulated standings cache up to date for timestamp={}", loadedTimestamp);
+            return;
+        }
+
         log.info("Refreshing simulated standings cache...");
-        List<SimulatedStandingEntity> all = simulatedStandingRepository.findAll();
-        if (all.isEmpty()) {
+        Optional<SimulatedStandingSnapshotEntity> latest = newest.flatMap(this::loadSnapshot);
+        if (latest.isEmpty()) {
             cache.set(new ArrayList<>());
+            encoded.set(EncodedJson.of(jsonMapper, List.of(), false));
+            histograms.set(Map.of());
+            loadedTimestamp = null;
             log.info("No simulated standings found - cache set to empty list");
             return;
         }
 
-        log.info("Fetched {} simulated standings from repository", all.size());
+        SimulatedStandingSnapshotEntity snapshot = latest.get();
+        List<SimulatedStandingEntry> standings = snapshot.getStandings() == null ? List.of() : snapshot.getStandings();
 
-        // find earliest non-null timestamp
-        Instant newest = all.stream()
-                .map(SimulatedStandingEntity::getTimestamp)
-                .filter(Objects::nonNull)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
+        List<TablePredictionModel> mapped = standings.stream()
+                .map(e -> toTablePredictionModel(snapshot, e))
+                .collect(Collectors.toList());
 
-        if (newest == null) {
-            cache.set(new ArrayList<>());
-            log.warn("No valid timestamps found in simulated standings - cache set to empty list");
-            return;
+        Map<String, TeamHistograms> decoded = new TreeMap<>();
+        if (snapshot.getSimulations() != null) {
+            standings.stream()
+                    .filter(e -> e.getPositionHistogram() != null)
+                    .forEach(e -> decoded.put(e.getFootballClubCode(), new TeamHistograms(
+                            snapshot.getTimestamp(),
+                            snapshot.getSimulations(),
+                            PackedHistogram.decode(e.getPositionHistogram()),
+                            e.getPointsHistogram() == null ? new int[0] : PackedHistogram.decode(e.getPointsHistogram()))));
         }
 
-        List<TablePredictionModel> mapped = all.stream()
-                .filter(e -> newest.equals(e.getTimestamp()))
-                .map(this::toTablePredictionModel)
-                .collect(Collectors.toList());
-
         cache.set(mapped);
-        log.info("Cache refreshed with {} entries for timestamp={}", mapped.size(), newest);
+        encoded.set(EncodedJson.of(jsonMapper, mapped, gzipEnabled));
+        histograms.set(decoded);
+        loadedTimestamp = snapshot.getTimestamp();
+        log.info("Cache refreshed with {} entries for timestamp={}", mapped.size(), snapshot.getTimestamp());
+    }
+
+    private Optional<SimulatedStandingSnapshotEntity> loadSnapshot(Instant timestamp) {
+        return simulatedStandingSnapshotRepository.findByTimestamp(timestamp).or(() -> {
+            List<SimulatedStandingEntity> legacy = simulatedStandingRepository.findByTimestamp(timestamp);
+            return legacy.isEmpty() ? Optional.empty() : Optional.of(SnapshotMigrationService.toSnapshot(legacy));
+        });
+    }
+
+    private List<RangePredictionModel> range(int from,
+                                             int to,
+                                             Function<TeamHistograms, int[]> histogram,
+                                             int firstIndexValue) {
+        List<RangePredictionModel> result = new ArrayList<>();
+        for (Map.Entry<String, TeamHistograms> e : histograms.get().entrySet()) {
+            TeamHistograms team = e.getValue();
+            int[] counts = histogram.apply(team);
+            long hits = 0;
+            for (int value = Math.max(from, firstIndexValue); value <= to && value - firstIndexValue < counts.length; value++) {
+                hits += counts[value - firstIndexValue];
+            }
+
+            RangePredictionModel m = new RangePredictionModel();
+            m.setFootballClubCode(e.getKey());
+            m.setTimestamp(OffsetDateTime.ofInstant(team.timestamp(), ZoneOffset.UTC));
+            m.setFrom(from);
+            // otwarty zakres punktów - górna granica to najwyższa wartość w histogramie, ale nie mniej niż from
+            // (pusty histogram albo from powyżej maksimum dałyby odwrócony zakres; prawdopodobieństwo to wtedy 0)
+            m.setTo(to == Integer.MAX_VALUE ? Math.max(from, firstIndexValue + counts.length - 1) : to);
+            m.setProbability(team.simulations() > 0 ? hits * 100.0 / team.simulations() : 0.0);
+            m.setStandardError(SimulationResult.standardError(hits, team.simulations()));
+            m.setSimulations(team.simulations());
+            result.add(m);
+        }
+        return result;
     }
 
-    private TablePredictionModel toTablePredictionModel(SimulatedStandingEntity e) {
+    private TablePredictionModel toTablePredictionModel(SimulatedStandingSnapshotEntity snapshot, SimulatedStandingEntry e) {
         TablePredictionModel m = new TablePredictionModel();
-        m.setId(e.getId());
+        m.setId(modelId(snapshot.getId(), e.getLegacyId(), e.getFootballClubCode()));
         m.setFootballClubCode(e.getFootballClubCode());
         // convert Instant -> OffsetDateTime (UTC)
-        if (e.getTimestamp() != null) {
-            m.setTimestamp(OffsetDateTime.ofInstant(e.getTimestamp(), ZoneOffset.UTC));
+        if (snapshot.getTimestamp() != null) {
+            m.setTimestamp(OffsetDateTime.ofInstant(snapshot.getTimestamp(), ZoneOffset.UTC));
         }
         m.setMatchPlayed(e.getMatchPlayed());
         m.setRanking(e.getRanking());
         m.setPoints(e.getPoints());
         m.setTop4Prediction(e.getTop4Prediction());
         m.setRelegationPrediction(e.getRelegationPrediction());
+        m.setTop4PredictionError(e.getTop4PredictionError());
+        m.setRelegationPredictionError(e.getRelegationPredictionError());
         return m;
     }
+
+    /**
+     * Id wiersza w API: dla wpisów zmigrowanych ze starych kolekcji - dotychczasowe id dokumentu per drużyna,
+     * dla nowych snapshotów - "id snapshotu:kod drużyny". Snapshot bez id (jeszcze niezapisany) daje null,
+     * a nie "null:kod".
+     */
+    private static String modelId(String snapshotId, String legacyId, String footballClubCode) {
+        if (legacyId != null) return legacyId;
+        return snapshotId != null ? snapshotId + ":" + footballClubCode : null;
+    }
 }
@@ -0,0 +1,40 @@
+package ekstraklasa.predictor.cache;
+
+import ekstraklasa.predictor.model.SnapshotCommittedEvent;
+import ekstraklasa.predictor.service.SeasonStateService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Przełącza cache na wersję snapshotu z SnapshotCommittedEvent, niezależnie od transportu.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnapshotInvalidationListener {
+
+    private final SnapshotInvalidationTransport transport;
+    private final SimulatedStandingCacheRepository simulatedStandingCacheRepository;
+    private final TeamStrengthCacheRepository teamStrengthCacheRepository;
+    private final ClubHistoryCache clubHistoryCache;
+    private final SeasonStateService seasonStateService;
+
+    @PostConstruct
+    public void init() {
+        transport.subscribe(this::onSnapshotCommitted);
+    }
+
+    public void onSnapshotCommitted(SnapshotCommittedEvent event) {
+        log.info("Snapshot committed: {}", event);
+        clubHistoryCache.invalidate(event.kind());
+        switch (event.kind()) {
+            case SIMULATED_STANDINGS -> {
+                simulatedStandingCacheRepository.refreshTo(event.timestamp());
+                seasonStateService.onStandingsCommitted(event.timestamp());
+            }
+            case TEAM_STRENGTHS -> teamStrengthCacheRepository.refreshTo(event.timestamp());
+        }
+    }
+}
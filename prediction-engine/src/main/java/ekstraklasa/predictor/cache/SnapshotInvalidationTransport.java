@@ -0,0 +1,19 @@
+package ekstraklasa.predictor.cache;
+
+import ekstraklasa.predictor.model.SnapshotCommittedEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Kanał rozgłaszania zapisanych snapshotów do cache wszystkich instancji.
+ * Wybór implementacji: cache.invalidation.transport (local | mongo-change-stream).
+ */
+public interface SnapshotInvalidationTransport {
+
+    /**
+     * Wywoływane po zapisaniu snapshotu w bazie.
+     */
+    void publish(SnapshotCommittedEvent event);
+
+    void subscribe(Consumer<SnapshotCommittedEvent> listener);
+}
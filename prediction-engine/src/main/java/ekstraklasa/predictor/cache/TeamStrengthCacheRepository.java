@@ -1,31 +1,53 @@
 package ekstraklasa.predictor.cache;
 
 import ekstraklasa.predictor.entity.TeamStrengthEntity;
+import ekstraklasa.predictor.entity.TeamStrengthEntry;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
 import ekstraklasa.predictor.model.TeamStrengthModel;
 import ekstraklasa.predictor.repository.TeamStrengthRepository;
+import ekstraklasa.predictor.repository.SnapshotTimestamp;
+import ekstraklasa.predictor.repository.TeamStrengthSnapshotRepository;
+import ekstraklasa.predictor.service.SnapshotMigrationService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
 
 import jakarta.annotation.PostConstruct;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class TeamStrengthCacheRepository {
+    private final TeamStrengthSnapshotRepository teamStrengthSnapshotRepository;
+    // stary układ (dokument per drużyna) - tylko do czasu migracji
     private final TeamStrengthRepository teamStrengthRepository;
+    private final JsonMapper jsonMapper;
     private final AtomicReference<List<TeamStrengthModel>> cache = new AtomicReference<>(new ArrayList<>());
+    // mapa footballClubCode -> strength zserializowana raz na snapshot (GET /api/team-strength)
+    private final AtomicReference<EncodedJson> encoded;
+    // timestamp snapshotu aktualnie trzymanego w cache (null - pusty cache)
+    private Instant loadedTimestamp;
 
-    public TeamStrengthCacheRepository(TeamStrengthRepository teamStrengthRepository) {
+    @Value("${cache.response.gzip:true}")
+    private boolean gzipEnabled;
+
+    public TeamStrengthCacheRepository(TeamStrengthSnapshotRepository teamStrengthSnapshotRepository,
+                                       TeamStrengthRepository teamStrengthRepository,
+                                       JsonMapper jsonMapper) {
+        this.teamStrengthSnapshotRepository = teamStrengthSnapshotRepository;
         this.teamStrengthRepository = teamStrengthRepository;
+        this.jsonMapper = jsonMapper;
+        this.encoded = new AtomicReference<>(EncodedJson.of(jsonMapper, Map.of(), false));
     }
 
     @PostConstruct
@@ -41,6 +63,19 @@ public class TeamStrengthCacheRepository {
         return cache.get();
     }
 
+    public EncodedJson getEncoded() {
+        return encoded.get();
+    }
+
+    /**
+     * Przełączenie na snapshot z SnapshotCommittedEvent; wersje nie nowsze niż załadowana są pomijane.
+     */
+    public synchronized void refreshTo(Instant timestamp) {
+        if (loadedTimestamp != null && !timestamp.isAfter(loadedTimestamp)) return;
+        refresh();
+    }
+
+    // zapasowe odpytywanie - nowe snapshoty przychodzą przez SnapshotInvalidationTransport
     @Scheduled(fixedRateString = "${cache.refresh.ms:3600000}") // default 1h
     public void scheduledRefresh() {
         try {
@@ -50,48 +85,70 @@ public class TeamStrengthCacheRepository {
         }
     }
 
+    /**
+     * Projekcja timestampu najnowszego snapshotu (malejący indeks); bez zmiany od ostatniego odświeżenia nic
+     * nie jest ładowane, inaczej jeden odczyt punktowy dokumentu. Przed migracją - najnowszy snapshot ze starych
+     * dokumentów per drużyna.
+     */
     public synchronized void refresh() {
-        log.info("Refreshing team strength cache...");
-        List<TeamStrengthEntity> all = teamStrengthRepository.findAll();
-        if (all.isEmpty()) {
-            cache.set(new ArrayList<>());
-            log.info("No team strengths found - cache set to empty list");
+        Optional<Instant> newest = teamStrengthSnapshotRepository.findFirstByOrderByTimestampDesc()
+                .or(teamStrengthRepository::findFirstByTimestampNotNullOrderByTimestampDesc)
+                .map(SnapshotTimestamp::getTimestamp);
+        if (newest.isPresent() && newest.get().equals(loadedTimestamp)) {
+            log.debug("Team strength cache up to date for timestamp={}", loadedTimestamp);
             return;
         }
 
-        log.info("Fetched {} team strengths from repository", all.size());
-
-        // choose newest timestamp
-        Instant newest = all.stream()
-                .map(TeamStrengthEntity::getTimestamp)
-                .filter(Objects::nonNull)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
-
-        if (newest == null) {
+        log.info("Refreshing team strength cache...");
+        Optional<TeamStrengthSnapshotEntity> latest = newest.flatMap(this::loadSnapshot);
+        if (latest.isEmpty()) {
             cache.set(new ArrayList<>());
-            log.warn("No valid timestamps found in team strengths - cache set to empty list");
+            encoded.set(EncodedJson.of(jsonMapper, Map.of(), false));
+            loadedTimestamp = null;
+            log.info("No team strengths found - cache set to empty list");
             return;
         }
 
-        List<TeamStrengthModel> mapped = all.stream()
-                .filter(e -> newest.equals(e.getTimestamp()))
-                .map(this::toModel)
+        TeamStrengthSnapshotEntity snapshot = latest.get();
+        List<TeamStrengthModel> mapped = (snapshot.getStrengths() == null ? List.<TeamStrengthEntry>of() : snapshot.getStrengths()).stream()
+                .map(e -> toModel(snapshot, e))
                 .collect(Collectors.toList());
 
+        Map<String, Double> strengthByCode = mapped.stream()
+                .filter(m -> m.getFootballClubCode() != null && m.getStrength() != null)
+                .collect(Collectors.toMap(TeamStrengthModel::getFootballClubCode, TeamStrengthModel::getStrength));
+
         cache.set(mapped);
-        log.info("Team strength cache refreshed with {} entries for timestamp={}", mapped.size(), newest);
+        encoded.set(EncodedJson.of(jsonMapper, strengthByCode, gzipEnabled));
+        loadedTimestamp = snapshot.getTimestamp();
+        log.info("Team strength cache refreshed with {} entries for timestamp={}", mapped.size(), snapshot.getTimestamp());
     }
 
-    private TeamStrengthModel toModel(TeamStrengthEntity e) {
+    private Optional<TeamStrengthSnapshotEntity> loadSnapshot(Instant timestamp) {
+        return teamStrengthSnapshotRepository.findByTimestamp(timestamp).or(() -> {
+            List<TeamStrengthEntity> legacy = teamStrengthRepository.findByTimestamp(timestamp);
+            return legacy.isEmpty() ? Optional.empty() : Optional.of(SnapshotMigrationService.toTeamStrengthSnapshot(legacy));
+        });
+    }
+
+    private TeamStrengthModel toModel(TeamStrengthSnapshotEntity snapshot, TeamStrengthEntry e) {
         TeamStrengthModel m = new TeamStrengthModel();
-        m.setId(e.getId());
+        m.setId(modelId(snapshot.getId(), e.getLegacyId(), e.getFootballClubCode()));
         m.setFootballClubCode(e.getFootballClubCode());
-        if (e.getTimestamp() != null) {
-            m.setTimestamp(OffsetDateTime.ofInstant(e.getTimestamp(), ZoneOffset.UTC));
+        if (snapshot.getTimestamp() != null) {
+            m.setTimestamp(OffsetDateTime.ofInstant(snapshot.getTimestamp(), ZoneOffset.UTC));
         }
         m.setStrength(e.getStrength());
         return m;
     }
-}
 
+    /**
+     * Id wiersza w API: dla wpisów zmigrowanych ze starych kolekcji - dotychczasowe id dokumentu per drużyna,
+     * dla nowych snapshotów - "id snapshotu:kod drużyny". Snapshot bez id (jeszcze niezapisany) daje null,
+     * a nie "null:kod".
+     */
+    private static String modelId(String snapshotId, String legacyId, String footballClubCode) {
+        if (legacyId != null) return legacyId;
+        return snapshotId != null ? snapshotId + ":" + footballClubCode : null;
+    }
+}
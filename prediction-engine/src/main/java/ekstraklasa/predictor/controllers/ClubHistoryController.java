@@ -0,0 +1,45 @@
+package ekstraklasa.predictor.controllers;
+
+import ekstraklasa.predictor.api.HistoryApi;
+import ekstraklasa.predictor.model.ClubStandingHistoryPage;
+import ekstraklasa.predictor.model.ClubStrengthHistoryPage;
+import ekstraklasa.predictor.service.ClubHistoryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api")
+public class ClubHistoryController implements HistoryApi {
+
+    private final ClubHistoryService clubHistoryService;
+
+    public ClubHistoryController(ClubHistoryService clubHistoryService) {
+        this.clubHistoryService = clubHistoryService;
+    }
+
+    @Override
+    @GetMapping(value = "/history/{footballClubCode}/standings", produces = "application/json")
+    public ResponseEntity<ClubStandingHistoryPage> historyFootballClubCodeStandingsGet(
+            @PathVariable("footballClubCode") String footballClubCode,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(clubHistoryService.standings(footballClubCode, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Override
+    @GetMapping(value = "/history/{footballClubCode}/team-strength", produces = "application/json")
+    public ResponseEntity<ClubStrengthHistoryPage> historyFootballClubCodeTeamStrengthGet(
+            @PathVariable("footballClubCode") String footballClubCode,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(clubHistoryService.strengths(footballClubCode, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ekstraklasa.predictor.controllers;
+
+import ekstraklasa.predictor.cache.EncodedJson;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Gotowe bajty z EncodedJson jako treść ResponseEntity - zapisuje je ByteArrayHttpMessageConverter
+ * (Content-Type i Content-Encoding ustawione w nagłówkach), bez ponownej serializacji przez Jacksona.
+ */
+final class EncodedJsonResponses {
+
+    private EncodedJsonResponses() {
+    }
+
+    /**
+     * 304 gdy If-None-Match wskazuje bieżącą wersję; inaczej 200 z bajtami JSON (gzip, jeśli klient go akceptuje).
+     *
+     * Typ treści T wymusza interfejs wygenerowany z OpenAPI - faktyczną treścią jest byte[]. Konwerter
+     * wybierany jest po klasie treści, więc bajty idą do ByteArrayHttpMessageConverter, a nie do Jacksona.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ResponseEntity<T> write(EncodedJson encoded, String ifNoneMatch) {
+        if (encoded.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(encoded.etag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(encoded.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = encoded.json();
+        if (encoded.gzip() != null && acceptsGzip(acceptEncoding())) {
+            body = encoded.gzip();
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return (ResponseEntity<T>) response.contentLength(body.length).body(body);
+    }
+
+    // nagłówek bieżącego żądania - wygenerowany interfejs nie przekazuje Accept-Encoding do kontrolera
+    private static String acceptEncoding() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getHeader(HttpHeaders.ACCEPT_ENCODING)
+                : null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            // gzip;q=0 - jawna odmowa
+            return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package ekstraklasa.predictor.controllers;
+
+import ekstraklasa.predictor.model.IngestJobStatus;
+import ekstraklasa.predictor.service.IngestJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Asynchroniczna wersja /file/trigger: POST zwraca id zadania od razu, GET zwraca jego stan,
+ * a /progress strumieniuje stan (server-sent events) do zakończenia zadania.
+ */
+@RestController
+@RequestMapping("/file")
+@RequiredArgsConstructor
+public class IngestJobController {
+
+    private final IngestJobService ingestJobService;
+
+    @RequestMapping(
+            method = RequestMethod.POST,
+            value = "/jobs",
+            produces = { "application/json" }
+    )
+    public ResponseEntity<IngestJobStatus> submitJob() {
+        var job = ingestJobService.submit();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatus());
+    }
+
+    @RequestMapping(
+            method = RequestMethod.GET,
+            value = "/jobs/{id}",
+            produces = { "application/json" }
+    )
+    public ResponseEntity<IngestJobStatus> jobStatus(@PathVariable("id") String id) {
+        return ingestJobService.find(id)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @RequestMapping(
+            method = RequestMethod.GET,
+            value = "/jobs/{id}/progress",
+            produces = { "text/event-stream" }
+    )
+    public ResponseEntity<SseEmitter> jobProgress(@PathVariable("id") String id) {
+        return ingestJobService.find(id)
+                .map(job -> ResponseEntity.ok(ingestJobService.streamProgress(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,44 @@
+package ekstraklasa.predictor.controllers;
+
+import ekstraklasa.predictor.api.ScenarioApi;
+import ekstraklasa.predictor.model.ScenarioRequest;
+import ekstraklasa.predictor.model.ScenarioResponse;
+import ekstraklasa.predictor.service.ScenarioService;
+import ekstraklasa.predictor.service.SeasonStateService.SeasonStateUnavailableException;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+@RestController
+@RequestMapping("/api")
+public class ScenarioController implements ScenarioApi {
+
+    private final ScenarioService scenarioService;
+
+    public ScenarioController(ScenarioService scenarioService) {
+        this.scenarioService = scenarioService;
+    }
+
+    @Override
+    @PostMapping(value = "/scenario", produces = "application/json", consumes = "application/json")
+    public ResponseEntity<ScenarioResponse> scenarioPost(@Valid @RequestBody ScenarioRequest scenarioRequest) {
+        try {
+            return ResponseEntity.ok(scenarioService.simulate(scenarioRequest));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many scenario requests, retry later", e);
+        } catch (SeasonStateUnavailableException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Scenario simulation timed out", e);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Scenario simulation failed", e);
+        }
+    }
+}
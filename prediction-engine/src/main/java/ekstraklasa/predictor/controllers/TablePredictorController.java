@@ -2,6 +2,7 @@ package ekstraklasa.predictor.controllers;
 
 import ekstraklasa.predictor.api.TablePredictionApi;
 import ekstraklasa.predictor.cache.SimulatedStandingCacheRepository;
+import ekstraklasa.predictor.model.RangePredictionModel;
 import ekstraklasa.predictor.model.TablePredictionModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,7 +21,31 @@ public class TablePredictorController implements TablePredictionApi {
 
     @Override
     @GetMapping(value = "/table-prediction", produces = "application/json")
-    public ResponseEntity<List<TablePredictionModel>> tablePredictionGet() {
-        return ResponseEntity.ok(simulatedStandingCacheRepository.getAll());
+    public ResponseEntity<List<TablePredictionModel>> tablePredictionGet(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return EncodedJsonResponses.write(simulatedStandingCacheRepository.getEncoded(), ifNoneMatch);
+    }
+
+    @Override
+    @GetMapping(value = "/table-prediction/position-range", produces = "application/json")
+    public ResponseEntity<List<RangePredictionModel>> tablePredictionPositionRangeGet(
+            @RequestParam("fromPosition") Integer fromPosition,
+            @RequestParam("toPosition") Integer toPosition) {
+        if (fromPosition < 1 || toPosition < fromPosition) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(simulatedStandingCacheRepository.getPositionRange(fromPosition, toPosition));
+    }
+
+    @Override
+    @GetMapping(value = "/table-prediction/points-range", produces = "application/json")
+    public ResponseEntity<List<RangePredictionModel>> tablePredictionPointsRangeGet(
+            @RequestParam("minPoints") Integer minPoints,
+            @RequestParam(value = "maxPoints", required = false) Integer maxPoints) {
+        int max = maxPoints == null ? Integer.MAX_VALUE : maxPoints;
+        if (minPoints < 0 || max < minPoints) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(simulatedStandingCacheRepository.getPointsRange(minPoints, max));
     }
 }
\ No newline at end of file
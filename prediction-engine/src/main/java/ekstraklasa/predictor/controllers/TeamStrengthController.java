@@ -2,14 +2,13 @@ package ekstraklasa.predictor.controllers;
 
 import ekstraklasa.predictor.api.TeamStrengthApi;
 import ekstraklasa.predictor.cache.TeamStrengthCacheRepository;
-import ekstraklasa.predictor.model.TeamStrengthModel;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * @author Witold Drożdżowski (drozdzowski.witold@gmail.com)
@@ -32,11 +31,8 @@ public class TeamStrengthController implements TeamStrengthApi {
     )
 
     public ResponseEntity<Map<String, Double>> teamStrengthGet(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
     ) {
-        var list = teamStrengthCacheRepository.getAll();
-        var map = list.stream()
-                .filter(m -> m.getFootballClubCode() != null && m.getStrength() != null)
-                .collect(Collectors.toMap(TeamStrengthModel::getFootballClubCode, TeamStrengthModel::getStrength));
-        return ResponseEntity.ok(map);
+        return EncodedJsonResponses.write(teamStrengthCacheRepository.getEncoded(), ifNoneMatch);
     }
 }
@@ -0,0 +1,19 @@
+package ekstraklasa.predictor.controllers;
+
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Parametry spoza zakresów z OpenAPI (@Min/@Max na wygenerowanych interfejsach @Validated) -> 400 zamiast 500.
+ */
+@RestControllerAdvice
+public class ValidationExceptionHandler {
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ProblemDetail handleConstraintViolation(ConstraintViolationException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
@@ -3,5 +3,5 @@ package ekstraklasa.predictor.entity;
  * @author Witold Drożdżowski (drozdzowski.witold@gmail.com)
  * @since 02.2026
  */
-public class FootbalClubEntity {
+public class FootballClubEntity {
 }
@@ -0,0 +1,33 @@
+package ekstraklasa.predictor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Wczytany plik, z którego policzono snapshot standings o tym samym timestampie - zapisany binarnie
+ * (ReadResultSnapshot), żeby stan sezonu dało się odtworzyć po restarcie i na innych instancjach.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "season_input_snapshots")
+public class SeasonInputSnapshotEntity {
+
+    @Id
+    private String id;
+
+    // timestamp snapshotu standings (SimulatedStandingSnapshotEntity)
+    @Indexed(direction = IndexDirection.DESCENDING, unique = true)
+    private Instant timestamp;
+    private byte[] data;
+
+}
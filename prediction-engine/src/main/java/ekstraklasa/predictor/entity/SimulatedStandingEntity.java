@@ -10,6 +10,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
+/**
+ * Poprzedni układ kolekcji: jeden dokument na drużynę i snapshot. Nowe snapshoty zapisywane są
+ * jako SimulatedStandingSnapshotEntity - ta encja służy już tylko do migracji starych danych.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,32 @@
+package ekstraklasa.predictor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wpis jednej drużyny w dokumencie SimulatedStandingSnapshotEntity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimulatedStandingEntry {
+
+    // id starego dokumentu per drużyna - tylko we wpisach zmigrowanych z simulated_standings
+    private String legacyId;
+    private String footballClubCode;
+    private Integer matchPlayed;
+    private Integer ranking;
+    private Integer points;
+    private Double top4Prediction;
+    private Double relegationPrediction;
+    // błąd standardowy predykcji (pkt procentowe)
+    private Double top4PredictionError;
+    private Double relegationPredictionError;
+    // pełne histogramy z symulacji (PackedHistogram): liczniki pozycji 1..n i końcowych punktów
+    private byte[] positionHistogram;
+    private byte[] pointsHistogram;
+
+}
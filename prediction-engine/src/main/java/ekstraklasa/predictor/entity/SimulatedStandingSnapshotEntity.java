@@ -0,0 +1,40 @@
+package ekstraklasa.predictor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Jeden snapshot symulacji (wszystkie drużyny) w jednym dokumencie - zapis to jeden insert,
+ * a ostatni snapshot to jeden odczyt po indeksie timestamp.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// historia drużyny: dokumenty z jej wpisem, od najnowszego (GET /api/history/...)
+@CompoundIndex(name = "club_timestamp", def = "{'standings.footballClubCode': 1, 'timestamp': -1}")
+@Document(collection = "simulated_standing_snapshots")
+public class SimulatedStandingSnapshotEntity {
+
+    @Id
+    private String id;
+
+    @Indexed(direction = IndexDirection.DESCENDING, unique = true)
+    private Instant timestamp;
+    // ziarno Monte Carlo - ten sam seed i plik dają identyczne wyniki
+    private Long seed;
+    // liczba symulacji, z których policzono histogramy
+    private Integer simulations;
+    private List<SimulatedStandingEntry> standings;
+
+}
@@ -10,6 +10,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
+/**
+ * Poprzedni układ kolekcji: jeden dokument na drużynę i przeliczenie. Nowe siły zapisywane są
+ * jako TeamStrengthSnapshotEntity - ta encja służy już tylko do migracji starych danych.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,22 @@
+package ekstraklasa.predictor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wpis jednej drużyny w dokumencie TeamStrengthSnapshotEntity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TeamStrengthEntry {
+
+    // id starego dokumentu per drużyna - tylko we wpisach zmigrowanych z team_strengths
+    private String legacyId;
+    private String footballClubCode;
+    private Double strength;
+
+}
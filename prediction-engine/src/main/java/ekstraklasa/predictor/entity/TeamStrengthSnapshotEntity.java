@@ -0,0 +1,35 @@
+package ekstraklasa.predictor.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.IndexDirection;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Siły wszystkich drużyn z jednego przeliczenia w jednym dokumencie.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// historia drużyny: dokumenty z jej wpisem, od najnowszego (GET /api/history/...)
+@CompoundIndex(name = "club_timestamp", def = "{'strengths.footballClubCode': 1, 'timestamp': -1}")
+@Document(collection = "team_strength_snapshots")
+public class TeamStrengthSnapshotEntity {
+
+    @Id
+    private String id;
+
+    @Indexed(direction = IndexDirection.DESCENDING, unique = true)
+    private Instant timestamp;
+    private List<TeamStrengthEntry> strengths;
+
+}
@@ -0,0 +1,16 @@
+package ekstraklasa.predictor.model;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia adaptacyjnego trybu Monte Carlo: symulacje uruchamiane są partiami po batchSize,
+ * aż błąd standardowy (w punktach procentowych, Agresti-Coull) każdej predykcji top4 / spadku spadnie
+ * do tolerance, skończy się budżet czasu albo zostanie osiągnięte maxSimulations.
+ */
+public record AdaptiveSimulationSettings(
+        int batchSize,
+        int maxSimulations,
+        double tolerance,
+        Duration timeBudget
+) {
+}
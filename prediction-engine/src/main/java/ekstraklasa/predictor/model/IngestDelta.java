@@ -0,0 +1,39 @@
+package ekstraklasa.predictor.model;
+
+import java.util.Set;
+
+/**
+ * Różnica wczytanego pliku względem ostatnio przetworzonego. Symulacja i siły drużyn liczone są zawsze
+ * z całego pliku (siły zależą też od statystyk i kolejności wyników), więc o etapach decyduje tylko to,
+ * czy dane do obliczeń się zmieniły; listy meczów służą do statusu zadania i logów.
+ *
+ * @param changedResults  mecze z innym wynikiem (dodane, zmienione, usunięte)
+ * @param changedFixtures mecze do rozegrania dodane, zmienione albo usunięte
+ * @param changedStats    mecze z innymi statystykami (przy niezmienionym wyniku)
+ */
+public record IngestDelta(Kind kind, Set<String> changedResults, Set<String> changedFixtures, Set<String> changedStats) {
+
+    public enum Kind {
+        // brak poprzedniego pliku - pełne przeliczenie
+        INITIAL,
+        // plik bajt w bajt taki sam jak poprzedni
+        IDENTICAL,
+        // inny plik, ale bez zmian w danych używanych w obliczeniach
+        UNCHANGED,
+        // zmienione tylko statystyki (albo kolejność wyników)
+        STATS_ONLY,
+        // zmienione wyniki, fixtures albo lista drużyn
+        RESULTS_CHANGED
+    }
+
+    public static IngestDelta of(Kind kind) {
+        return new IngestDelta(kind, Set.of(), Set.of(), Set.of());
+    }
+
+    /**
+     * false - poprzednie snapshoty (standings, siły drużyn) zostają aktualne.
+     */
+    public boolean inputChanged() {
+        return kind != Kind.IDENTICAL && kind != Kind.UNCHANGED;
+    }
+}
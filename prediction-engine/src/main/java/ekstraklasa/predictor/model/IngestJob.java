@@ -0,0 +1,115 @@
+package ekstraklasa.predictor.model;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stan jednego zadania przetwarzania pliku: etap, czasy etapów i wynik.
+ * Aktualizowany przez wątek zadania, odczytywany przez endpoint statusu - metody są synchronizowane.
+ */
+public class IngestJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Path input;
+    private final Instant submittedAt = Instant.now();
+    // aktualizowany bez blokad przez workery Monte Carlo - poza synchronizacją zadania
+    private final SimulationProgress simulationProgress = new SimulationProgress();
+
+    private IngestJobState state = IngestJobState.QUEUED;
+    private IngestStage currentStage;
+    private long currentStageStartNanos;
+    private final Map<IngestStage, Long> stageTimingsMs = new EnumMap<>(IngestStage.class);
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+    private IngestDelta delta;
+
+    public IngestJob(Path input) {
+        this.input = input;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getInput() {
+        return input;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public SimulationProgress getSimulationProgress() {
+        return simulationProgress;
+    }
+
+    public synchronized IngestJobState getState() {
+        return state;
+    }
+
+    public synchronized void started() {
+        state = IngestJobState.RUNNING;
+        startedAt = Instant.now();
+    }
+
+    public synchronized void startStage(IngestStage stage) {
+        finishStage();
+        currentStage = stage;
+        currentStageStartNanos = System.nanoTime();
+    }
+
+    public synchronized void finishStage() {
+        if (currentStage == null) return;
+        stageTimingsMs.put(currentStage, Duration.ofNanos(System.nanoTime() - currentStageStartNanos).toMillis());
+        currentStage = null;
+    }
+
+    public synchronized void delta(IngestDelta delta) {
+        this.delta = delta;
+    }
+
+    public synchronized void finished(IngestJobState finalState, String error) {
+        finishStage();
+        this.state = finalState;
+        this.error = error;
+        this.finishedAt = Instant.now();
+    }
+
+    /**
+     * Postęp 0..1 liczony z zakończonych etapów; trwający etap SIMULATION wlicza się ułamkiem
+     * wykonanych symulacji.
+     */
+    public synchronized double getProgress() {
+        if (state.isFinished()) return 1.0;
+        double stages = stageTimingsMs.size();
+        if (currentStage == IngestStage.SIMULATION) {
+            stages += simulationProgress.snapshot().fraction();
+        }
+        return stages / IngestStage.values().length;
+    }
+
+    public synchronized IngestJobStatus toStatus() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        stageTimingsMs.forEach((stage, ms) -> timings.put(stage.name(), ms));
+        return new IngestJobStatus(
+                id,
+                input == null ? null : input.getFileName().toString(),
+                state,
+                currentStage,
+                getProgress(),
+                simulationProgress.snapshot(),
+                delta,
+                timings,
+                submittedAt,
+                startedAt,
+                finishedAt,
+                error
+        );
+    }
+}
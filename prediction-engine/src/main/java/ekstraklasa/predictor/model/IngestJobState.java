@@ -0,0 +1,13 @@
+package ekstraklasa.predictor.model;
+
+public enum IngestJobState {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    NO_INPUT,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == NO_INPUT || this == FAILED;
+    }
+}
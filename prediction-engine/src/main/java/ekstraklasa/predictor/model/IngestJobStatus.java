@@ -0,0 +1,24 @@
+package ekstraklasa.predictor.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Migawka stanu zadania zwracana przez API zadań.
+ */
+public record IngestJobStatus(
+        String id,
+        String input,
+        IngestJobState state,
+        IngestStage stage,
+        double progress,
+        SimulationProgress.Snapshot simulation,
+        // różnica względem poprzedniego pliku (null przed parsowaniem)
+        IngestDelta delta,
+        Map<String, Long> stageTimingsMs,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+}
@@ -0,0 +1,13 @@
+package ekstraklasa.predictor.model;
+
+/**
+ * Kolejne etapy przetwarzania pliku z folderu consumable.
+ */
+public enum IngestStage {
+    PARSE,
+    SIMULATION,
+    STANDINGS_CACHE,
+    TEAM_STRENGTH,
+    STRENGTH_CACHE,
+    CLEANUP
+}
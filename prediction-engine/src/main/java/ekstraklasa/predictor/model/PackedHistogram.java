@@ -0,0 +1,69 @@
+package ekstraklasa.predictor.model;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Kompaktowy zapis histogramu (liczniki int) do byte[]: varint przesunięcia (pierwszy niezerowy indeks),
+ * varint długości, a potem liczniki jako varinty (LEB128). Zera na początku (np. punkty poniżej minimum)
+ * nie zajmują miejsca, a małe liczniki zajmują 1-2 bajty zamiast 4.
+ */
+public final class PackedHistogram {
+
+    private PackedHistogram() {
+    }
+
+    public static byte[] encode(int[] counts) {
+        if (counts == null) return null;
+
+        int from = 0;
+        while (from < counts.length && counts[from] == 0) from++;
+        int to = counts.length;
+        while (to > from && counts[to - 1] == 0) to--;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + 2 * (to - from));
+        writeVarint(out, from);
+        writeVarint(out, to - from);
+        for (int i = from; i < to; i++) {
+            writeVarint(out, counts[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Dekoduje histogram; indeksy jak w tablicy przekazanej do encode (bez końcowych zer).
+     */
+    public static int[] decode(byte[] packed) {
+        if (packed == null) return null;
+
+        int[] position = {0};
+        int from = readVarint(packed, position);
+        int length = readVarint(packed, position);
+        int[] counts = new int[from + length];
+        for (int i = 0; i < length; i++) {
+            counts[from + i] = readVarint(packed, position);
+        }
+        return counts;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
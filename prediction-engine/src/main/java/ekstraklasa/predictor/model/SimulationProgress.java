@@ -0,0 +1,68 @@
+package ekstraklasa.predictor.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Postęp jednego uruchomienia Monte Carlo aktualizowany bez blokad przez workery.
+ *
+ * Workery tylko inkrementują LongAdder (brak rywalizacji o jedną komórkę jak przy AtomicInteger),
+ * a odczyt (snapshot) liczy tempo i ETA z czasu od startu. Dla trybu adaptacyjnego total to
+ * maksymalna liczba symulacji - ETA jest wtedy górnym ograniczeniem.
+ */
+public class SimulationProgress {
+
+    private final LongAdder completed = new LongAdder();
+    private volatile long total;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+
+    /**
+     * Zeruje licznik i zaczyna pomiar czasu - wywoływane przed startem workerów.
+     */
+    public void start(long total) {
+        completed.reset();
+        this.total = total;
+        this.finishedNanos = 0L;
+        this.startedNanos = System.nanoTime();
+    }
+
+    public void increment() {
+        completed.increment();
+    }
+
+    public void finish() {
+        this.finishedNanos = System.nanoTime();
+    }
+
+    public Snapshot snapshot() {
+        long started = startedNanos;
+        long done = completed.sum();
+        long all = total;
+        if (started == 0L) {
+            return new Snapshot(done, all, 0.0, null);
+        }
+
+        long finished = finishedNanos;
+        long end = finished != 0L ? finished : System.nanoTime();
+        double elapsedSeconds = (end - started) / 1_000_000_000.0;
+        double perSecond = elapsedSeconds > 0 ? done / elapsedSeconds : 0.0;
+
+        Double etaSeconds = null;
+        if (finished != 0L || done >= all) {
+            etaSeconds = 0.0;
+        } else if (perSecond > 0) {
+            etaSeconds = (all - done) / perSecond;
+        }
+        return new Snapshot(done, all, perSecond, etaSeconds);
+    }
+
+    /**
+     * Niezmienny odczyt postępu; etaSeconds == null, dopóki nie da się oszacować tempa.
+     */
+    public record Snapshot(long completed, long total, double simulationsPerSecond, Double etaSeconds) {
+
+        public double fraction() {
+            return total <= 0 ? 0.0 : Math.min(1.0, (double) completed / total);
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package ekstraklasa.predictor.model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Zbiera liczniki pozycji dla każdej drużyny po serii symulacji.
+ * Zbiera liczniki pozycji (i końcowych punktów) dla każdej drużyny po serii symulacji.
  */
 public class SimulationResult {
+    private static final double Z_95 = 1.96;
+
     private final Map<String, int[]> positionCounts = new HashMap<>();
+    // pointsCounts[p] -> liczba symulacji zakończonych z p punktami
+    private final Map<String, int[]> pointsCounts = new HashMap<>();
     private final int leagueSize;
     private int simulations = 0;
 
@@ -27,6 +32,44 @@ public class SimulationResult {
         positionCounts.get(teamCode)[position - 1]++;
     }
 
+    /**
+     * Dodaje liczniki z innego (częściowego) wyniku, np. z osobnego workera.
+     */
+    public void merge(SimulationResult other) {
+        for (Map.Entry<String, int[]> e : other.positionCounts.entrySet()) {
+            addCounts(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, int[]> e : other.pointsCounts.entrySet()) {
+            addPointsCounts(e.getKey(), e.getValue());
+        }
+        simulations += other.simulations;
+    }
+
+    /**
+     * Dodaje gotowe liczniki pozycji (counts[0] -> pozycja 1) dla drużyny.
+     */
+    public void addCounts(String teamCode, int[] counts) {
+        ensureTeam(teamCode);
+        int[] target = positionCounts.get(teamCode);
+        for (int i = 0; i < Math.min(target.length, counts.length); i++) {
+            target[i] += counts[i];
+        }
+    }
+
+    /**
+     * Dodaje liczniki końcowych punktów (counts[p] -> p punktów) dla drużyny; tablica rośnie w razie potrzeby.
+     */
+    public void addPointsCounts(String teamCode, int[] counts) {
+        int[] target = pointsCounts.get(teamCode);
+        if (target == null || target.length < counts.length) {
+            target = target == null ? new int[counts.length] : Arrays.copyOf(target, counts.length);
+            pointsCounts.put(teamCode, target);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            target[i] += counts[i];
+        }
+    }
+
     public void setSimulations(int simulations) {
         this.simulations = simulations;
     }
@@ -49,10 +92,52 @@ public class SimulationResult {
         return res;
     }
 
+    /**
+     * Procent symulacji, w których drużyna zajęła pozycję z zakresu [fromPosition, toPosition].
+     */
+    public double getRangePercentage(String teamCode, int fromPosition, int toPosition) {
+        if (simulations <= 0) return 0.0;
+        return (countInRange(teamCode, fromPosition, toPosition) * 100.0) / simulations;
+    }
+
+    /**
+     * Błąd standardowy estymaty getRangePercentage, w punktach procentowych (standardError).
+     */
+    public double getRangeStandardError(String teamCode, int fromPosition, int toPosition) {
+        return standardError(countInRange(teamCode, fromPosition, toPosition), simulations);
+    }
+
+    /**
+     * Błąd standardowy (pkt procentowe) estymaty hits / simulations w przybliżeniu Agrestiego-Coulla:
+     * do hits i simulations dodawane jest z²/2 sukcesów i z²/2 porażek (z dla 95%). W przeciwieństwie
+     * do błędu Walda nie spada do zera dla 0% i 100%, więc estymata bez trafień nie wygląda na pewną -
+     * ten sam błąd zapisywany jest w snapshotach, zwracany przez API i używany w regule stopu Monte Carlo.
+     */
+    public static double standardError(long hits, int simulations) {
+        if (simulations <= 0) return 100.0;
+        double n = simulations + Z_95 * Z_95;
+        double p = (hits + Z_95 * Z_95 / 2) / n;
+        return Math.sqrt(p * (1.0 - p) / n) * 100.0;
+    }
+
+    private int countInRange(String teamCode, int fromPosition, int toPosition) {
+        int[] counts = positionCounts.get(teamCode);
+        if (counts == null) return 0;
+        int sum = 0;
+        for (int i = Math.max(1, fromPosition); i <= Math.min(leagueSize, toPosition); i++) {
+            sum += counts[i - 1];
+        }
+        return sum;
+    }
+
     public Map<String, int[]> getPositionCounts() {
         return positionCounts;
     }
 
+    public Map<String, int[]> getPointsCounts() {
+        return pointsCounts;
+    }
+
     public int getLeagueSize() {
         return leagueSize;
     }
@@ -0,0 +1,14 @@
+package ekstraklasa.predictor.model;
+
+import java.time.Instant;
+
+/**
+ * Zapisano nowy snapshot - jego timestamp jest wersją, do której przełączają się cache na każdej instancji.
+ */
+public record SnapshotCommittedEvent(SnapshotKind kind, Instant timestamp) {
+
+    public enum SnapshotKind {
+        SIMULATED_STANDINGS,
+        TEAM_STRENGTHS
+    }
+}
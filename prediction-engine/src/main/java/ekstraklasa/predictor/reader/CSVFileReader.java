@@ -8,12 +8,14 @@ import ekstraklasa.predictor.model.MatchFixture;
 import ekstraklasa.predictor.model.MatchResult;
 import ekstraklasa.predictor.model.MatchStats;
 import ekstraklasa.predictor.model.Winner;
+import ekstraklasa.predictor.reader.CsvColumnSchema.MatchField;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -21,111 +23,272 @@ import java.text.Normalizer;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CSVFileReader {
     private static final String RESOURCE_CSV = "/ekstraklasa-results.csv";
+    // minimalny rozmiar części przy czytaniu równoległym - mniejsze pliki nie opłacają się dzielić
+    private static final long PARALLEL_MIN_CHUNK_BYTES = 4L << 20;
     private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9_]+");
 
     public static ReadResult readConstantFile() throws IOException {
-        try (Reader r = new InputStreamReader(Objects.requireNonNull(CSVFileReader.class.getResourceAsStream(RESOURCE_CSV)), StandardCharsets.UTF_8)) {
-            return readFromReader(r);
+        try (Reader r = new InputStreamReader(Objects.requireNonNull(CSVFileReader.class.getResourceAsStream(RESOURCE_CSV)), StandardCharsets.UTF_8);
+             Stream<ParsedRow> rows = stream(r)) {
+            return collect(rows);
         }
     }
 
+    /**
+     * readFromPath(path, parallelism) przez binarny snapshot w snapshotDir. Snapshot nazwany jest hashem treści,
+     * więc ten sam plik wrzucony ponownie - także pod inną nazwą - nie jest parsowany. Starych snapshotów
+     * nie usuwa - ReadResultSnapshot.prune.
+     *
+     * @param sourceHash SHA-256 pliku (ReadResultSnapshot.sha256), jeśli policzony już wcześniej; null - liczony tutaj
+     */
+    public static ReadResult readFromPath(Path path, int parallelism, Path snapshotDir, byte[] sourceHash) throws IOException {
+        byte[] hash = sourceHash != null ? sourceHash : ReadResultSnapshot.sha256(path);
+        Path snapshot = snapshotDir.resolve(HexFormat.of().formatHex(hash) + ReadResultSnapshot.SUFFIX);
+        return ReadResultSnapshot.readThrough(snapshot, hash, () -> readFromPath(path, parallelism));
+    }
+
     public static ReadResult readFromPath(Path path) throws IOException {
-        try (Reader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            return readFromReader(r);
+        try (Stream<ParsedRow> rows = stream(path)) {
+            return collect(rows);
+        }
+    }
+
+    /**
+     * Strumieniowe czytanie pliku: wiersze parsowane leniwie, dopiero gdy konsument pobierze kolejny element
+     * (naturalny back-pressure), więc pamięć nie rośnie z rozmiarem pliku. Strumień trzeba zamknąć
+     * (try-with-resources). Błędy odczytu w trakcie -> UncheckedIOException.
+     *
+     * Plik jest mapowany w pamięć i parsowany bezpośrednio z bajtów (MappedCsvReader).
+     */
+    public static Stream<ParsedRow> stream(Path path) throws IOException {
+        CsvRow.Source source = MappedCsvReader.open(path);
+        if (source == null) {
+            // plik > 2 GB nie mieści się w jednym mapowaniu - zostaje opencsv
+            source = openCsv(Files.newBufferedReader(path, StandardCharsets.UTF_8));
         }
+        return stream(source);
     }
 
-    private static ReadResult readFromReader(Reader r) throws IOException {
-        try (CSVReader csv = new CSVReader(r)) {
+    static Stream<ParsedRow> stream(Reader r) throws IOException {
+        return stream(openCsv(r));
+    }
 
-            String[] header = csv.readNext();
+    /**
+     * Równoległe czytanie dużych plików (np. archiwum kilku sezonów). Plik dzielony jest na parallelism
+     * części na granicach rekordów (MappedCsvReader.recordBoundaries - z obsługą cudzysłowów), części
+     * parsowane są równolegle, a wiersze łączone w kolejności części - wynik identyczny jak readFromPath.
+     * Pliki mniejsze niż PARALLEL_MIN_CHUNK_BYTES na część czytane są sekwencyjnie.
+     */
+    public static ReadResult readFromPath(Path path, int parallelism) throws IOException {
+        int parts = (int) Math.min(parallelism, Files.size(path) / PARALLEL_MIN_CHUNK_BYTES);
+        MappedCsvReader reader = parts > 1 ? MappedCsvReader.open(path) : null;
+        if (reader == null) return readFromPath(path);
+
+        try (reader) {
+            String[] header = reader.header();
             if (header == null) throw new IOException("Empty CSV");
+            CsvColumnSchema schema = CsvColumnSchema.resolve(header);
+            int[] boundaries = reader.recordBoundaries(parts);
+
+            ForkJoinPool pool = new ForkJoinPool(parts);
+            try {
+                List<Future<List<ParsedRow>>> chunks = new ArrayList<>();
+                for (int i = 0; i < parts; i++) {
+                    MappedCsvReader chunk = reader.slice(boundaries[i], boundaries[i + 1]);
+                    chunks.add(pool.submit(() -> {
+                        try (Stream<ParsedRow> rows = rows(chunk, schema)) {
+                            return rows.toList();
+                        }
+                    }));
+                }
 
-            List<MatchFixture> fixtures = new ArrayList<>();
-            List<MatchResult> results = new ArrayList<>();
-            Map<String, FootballClub> clubsByCode = new HashMap<>();
+                List<ParsedRow> rows = new ArrayList<>();
+                for (Future<List<ParsedRow>> chunk : chunks) {
+                    rows.addAll(chunk.get());
+                }
+                return collect(rows.stream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + path, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException u ? u.getCause() : e.getCause();
+                if (cause instanceof IOException io) throw io;
+                throw new IOException("Failed to read " + path, cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
 
-            String[] row;
-            while ((row = csv.readNext()) != null) {
-                if (row.length < header.length) continue;
+    private static Stream<ParsedRow> stream(CsvRow.Source source) throws IOException {
+        try {
+            String[] header = source.header();
+            if (header == null) throw new IOException("Empty CSV");
+            // indeksy kolumn raz na plik - wiersze czytane już tylko po indeksach
+            return rows(source, CsvColumnSchema.resolve(header));
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
 
-                String matchId = get(row, indexOf(header, "matchId", header));
-                String roundStr = get(row, indexOf(header, "round", header));
-                Integer round = tryParseInt(roundStr);
-                String roundName = get(row, indexOf(header, "roundName", header));
-                String pageUrl = get(row, indexOf(header, "pageUrl", header));
+    /**
+     * Wiersze ze źródła ustawionego za nagłówkiem; zamknięcie strumienia zamyka źródło.
+     */
+    private static Stream<ParsedRow> rows(CsvRow.Source source, CsvColumnSchema schema) {
+        // nazwa -> kod; stripAccents liczony raz na drużynę, nie na wiersz
+        Map<String, String> codesByName = new HashMap<>();
+
+        Spliterator<ParsedRow> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super ParsedRow> action) {
+                try {
+                    CsvRow row;
+                    while ((row = source.next()) != null) {
+                        if (row.length() < schema.headerLength()) continue;
+                        action.accept(parseRow(row, schema, codesByName));
+                        return true;
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                source.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static CsvRow.Source openCsv(Reader r) {
+        CSVReader csv = new CSVReader(r);
+        return new CsvRow.Source() {
+            @Override
+            public String[] header() throws IOException {
+                return readNext(csv);
+            }
 
-                String homeName = get(row, indexOf(header, "homeName", header));
-                String homeId = get(row, indexOf(header, "homeId", header));
-                String awayName = get(row, indexOf(header, "awayName", header));
-                String awayId = get(row, indexOf(header, "awayId", header));
+            @Override
+            public CsvRow next() throws IOException {
+                String[] row = readNext(csv);
+                return row == null ? null : new StringArrayRow(row);
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.close();
+            }
+        };
+    }
 
-                String homeCode = toCode(homeName);
-                String awayCode = toCode(awayName);
+    static ReadResult collect(Stream<ParsedRow> rows) throws IOException {
+        List<MatchFixture> fixtures = new ArrayList<>();
+        List<MatchResult> results = new ArrayList<>();
+        Map<String, FootballClub> clubsByCode = new HashMap<>();
 
+        try {
+            rows.forEach(row -> {
+                MatchFixture fixture = row.fixture();
                 // collect clubs
-                collectClub(clubsByCode, homeId, homeName, homeCode);
-                collectClub(clubsByCode, awayId, awayName, awayCode);
-
-                String utcTimeStr = get(row, indexOf(header, "utcTime", header));
-                Instant utcTime = tryParseInstant(utcTimeStr);
-
-                String finishedStr = get(row, indexOf(header, "finished", header));
-                boolean finished = "true".equalsIgnoreCase(finishedStr) || "1".equals(finishedStr);
-
-                String scoreStr = get(row, indexOf(header, "scoreStr", header));
-
-                MatchStats homeStats = buildStats(row, header, "__home");
-                MatchStats awayStats = buildStats(row, header, "__away");
-
-                MatchFixture fixture = new MatchFixture();
-                fixture.setMatchId(matchId);
-                fixture.setRound(round);
-                fixture.setRoundName(roundName);
-                fixture.setPageUrl(pageUrl);
-                fixture.setHomeName(homeName);
-                fixture.setHomeId(homeId);
-                fixture.setHomeTeamCode(homeCode);
-                fixture.setAwayName(awayName);
-                fixture.setAwayId(awayId);
-                fixture.setAwayTeamCode(awayCode);
-                fixture.setUtcTime(utcTime);
-                fixture.setHomeMatchStats(homeStats);
-                fixture.setAwayMatchStats(awayStats);
-
-                MatchResult matchResult = new MatchResult();
-                matchResult.setMatchId(matchId);
-                matchResult.setFinished(finished);
-                matchResult.setScoreStr(scoreStr);
-                matchResult.setHomeTeamCode(homeCode);
-                matchResult.setAwayTeamCode(awayCode);
-                if (scoreStr != null && scoreStr.contains("-")) {
-                    String[] parts = scoreStr.split("-");
-                    Integer homeGoals = tryParseInt(parts[0].trim());
-                    Integer awayGoals = tryParseInt(parts[1].trim());
-
-                    matchResult.setHomeGoals(homeGoals);
-                    matchResult.setAwayGoals(awayGoals);
-
-                    if (ObjectUtils.allNotNull(homeGoals, awayGoals)) {
-                        matchResult.setWinner(Winner.fromScore(homeGoals, awayGoals));
-                    }
-                }
-                matchResult.setHomeMatchStats(homeStats);
-                matchResult.setAwayMatchStats(awayStats);
+                collectClub(clubsByCode, fixture.getHomeId(), fixture.getHomeName(), fixture.getHomeTeamCode());
+                collectClub(clubsByCode, fixture.getAwayId(), fixture.getAwayName(), fixture.getAwayTeamCode());
 
-                if (finished) results.add(matchResult);
+                if (row.finished()) results.add(row.result());
                 else fixtures.add(fixture);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return new ReadResult(fixtures, results, new ArrayList<>(clubsByCode.values()));
+    }
+
+    private static ParsedRow parseRow(CsvRow row, CsvColumnSchema schema, Map<String, String> codesByName) {
+        String matchId = schema.get(row, MatchField.MATCH_ID);
+        Integer round = schema.intValue(row, MatchField.ROUND);
+        String roundName = schema.get(row, MatchField.ROUND_NAME);
+        String pageUrl = schema.get(row, MatchField.PAGE_URL);
+
+        String homeName = schema.get(row, MatchField.HOME_NAME);
+        String homeId = schema.get(row, MatchField.HOME_ID);
+        String awayName = schema.get(row, MatchField.AWAY_NAME);
+        String awayId = schema.get(row, MatchField.AWAY_ID);
+
+        String homeCode = homeName == null ? null : codesByName.computeIfAbsent(homeName, CSVFileReader::toCode);
+        String awayCode = awayName == null ? null : codesByName.computeIfAbsent(awayName, CSVFileReader::toCode);
+
+        Instant utcTime = schema.instant(row, MatchField.UTC_TIME);
+
+        String finishedStr = schema.get(row, MatchField.FINISHED);
+        boolean finished = "true".equalsIgnoreCase(finishedStr) || "1".equals(finishedStr);
+
+        String scoreStr = schema.get(row, MatchField.SCORE_STR);
+
+        MatchStats homeStats = schema.homeStats(row);
+        MatchStats awayStats = schema.awayStats(row);
+
+        MatchFixture fixture = new MatchFixture();
+        fixture.setMatchId(matchId);
+        fixture.setRound(round);
+        fixture.setRoundName(roundName);
+        fixture.setPageUrl(pageUrl);
+        fixture.setHomeName(homeName);
+        fixture.setHomeId(homeId);
+        fixture.setHomeTeamCode(homeCode);
+        fixture.setAwayName(awayName);
+        fixture.setAwayId(awayId);
+        fixture.setAwayTeamCode(awayCode);
+        fixture.setUtcTime(utcTime);
+        fixture.setHomeMatchStats(homeStats);
+        fixture.setAwayMatchStats(awayStats);
+
+        MatchResult matchResult = new MatchResult();
+        matchResult.setMatchId(matchId);
+        matchResult.setFinished(finished);
+        matchResult.setScoreStr(scoreStr);
+        matchResult.setHomeTeamCode(homeCode);
+        matchResult.setAwayTeamCode(awayCode);
+        if (scoreStr != null && scoreStr.contains("-")) {
+            String[] parts = scoreStr.split("-");
+            Integer homeGoals = tryParseInt(parts[0].trim());
+            Integer awayGoals = tryParseInt(parts[1].trim());
+
+            matchResult.setHomeGoals(homeGoals);
+            matchResult.setAwayGoals(awayGoals);
+
+            if (ObjectUtils.allNotNull(homeGoals, awayGoals)) {
+                matchResult.setWinner(Winner.fromScore(homeGoals, awayGoals));
             }
+        }
+        matchResult.setHomeMatchStats(homeStats);
+        matchResult.setAwayMatchStats(awayStats);
+
+        return new ParsedRow(fixture, matchResult);
+    }
 
-            return new ReadResult(fixtures, results, new ArrayList<>(clubsByCode.values()));
+    private static String[] readNext(CSVReader csv) throws IOException {
+        try {
+            return csv.readNext();
         } catch (CsvValidationException e) {
             throw new IOException(e);
         }
@@ -154,82 +317,43 @@ public class CSVFileReader {
                 .replace(CharConstants.BLANK_SPACE, CharConstants.UNDERSCORE);
     }
 
-    private static MatchStats buildStats(String[] row, String[] header, String suffix) {
-        MatchStats s = new MatchStats();
-        s.setBallPossession(tryParseDouble(get(row, indexOf(header, "BallPossesion" + suffix, header))));
-        s.setOffsides(tryParseInt(get(row, indexOf(header, "Offsides" + suffix, header))));
-        s.setShotsOffTarget(tryParseInt(get(row, indexOf(header, "ShotsOffTarget" + suffix, header))));
-        s.setShotsOnTarget(tryParseInt(get(row, indexOf(header, "ShotsOnTarget" + suffix, header))));
-        s.setAccurateCrosses(tryParseInt(get(row, indexOf(header, "accurate_crosses" + suffix, header))));
-        s.setAccuratePasses(tryParseInt(get(row, indexOf(header, "accurate_passes" + suffix, header))));
-        s.setAerialsWon(tryParseInt(get(row, indexOf(header, "aerials_won" + suffix, header))));
-        s.setBigChance(tryParseInt(get(row, indexOf(header, "big_chance" + suffix, header))));
-        s.setBigChanceMissedTitle(tryParseInt(get(row, indexOf(header, "big_chance_missed_title" + suffix, header))));
-        s.setBlockedShots(tryParseInt(get(row, indexOf(header, "blocked_shots" + suffix, header))));
-        s.setClearances(tryParseInt(get(row, indexOf(header, "clearances" + suffix, header))));
-        s.setCorners(tryParseInt(get(row, indexOf(header, "corners" + suffix, header))));
-        s.setDefense(tryParseDouble(get(row, indexOf(header, "defense" + suffix, header))));
-        s.setDiscipline(tryParseInt(get(row, indexOf(header, "discipline" + suffix, header))));
-        s.setDribblesSucceeded(tryParseInt(get(row, indexOf(header, "dribbles_succeeded" + suffix, header))));
-        s.setDuelWon(tryParseInt(get(row, indexOf(header, "duel_won" + suffix, header))));
-        s.setDuels(tryParseInt(get(row, indexOf(header, "duels" + suffix, header))));
-        s.setExpectedGoals(tryParseDouble(get(row, indexOf(header, "expected_goals" + suffix, header))));
-        s.setExpectedGoalsNonPenalty(tryParseDouble(get(row, indexOf(header, "expected_goals_non_penalty" + suffix, header))));
-        s.setExpectedGoalsOnTarget(tryParseDouble(get(row, indexOf(header, "expected_goals_on_target" + suffix, header))));
-        s.setExpectedGoalsOpenPlay(tryParseDouble(get(row, indexOf(header, "expected_goals_open_play" + suffix, header))));
-        s.setExpectedGoalsSetPlay(tryParseDouble(get(row, indexOf(header, "expected_goals_set_play" + suffix, header))));
-        s.setFouls(tryParseInt(get(row, indexOf(header, "fouls" + suffix, header))));
-        s.setGroundDuelsWon(tryParseInt(get(row, indexOf(header, "ground_duels_won" + suffix, header))));
-        s.setInterceptions(tryParseInt(get(row, indexOf(header, "interceptions" + suffix, header))));
-        s.setKeeperSaves(tryParseInt(get(row, indexOf(header, "keeper_saves" + suffix, header))));
-        s.setLongBallsAccurate(tryParseInt(get(row, indexOf(header, "long_balls_accurate" + suffix, header))));
-        s.setTackles(tryParseInt(get(row, indexOf(header, "matchstats.headers.tackles" + suffix, header))));
-        s.setOppositionHalfPasses(tryParseInt(get(row, indexOf(header, "opposition_half_passes" + suffix, header))));
-        s.setOwnHalfPasses(tryParseInt(get(row, indexOf(header, "own_half_passes" + suffix, header))));
-        s.setPasses(tryParseInt(get(row, indexOf(header, "passes" + suffix, header))));
-        s.setPlayerThrows(tryParseInt(get(row, indexOf(header, "player_throws" + suffix, header))));
-        s.setRedCards(tryParseInt(get(row, indexOf(header, "red_cards" + suffix, header))));
-        s.setShotBlocks(tryParseInt(get(row, indexOf(header, "shot_blocks" + suffix, header))));
-        s.setShots(tryParseInt(get(row, indexOf(header, "shots" + suffix, header))));
-        s.setShotsInsideBox(tryParseInt(get(row, indexOf(header, "shots_inside_box" + suffix, header))));
-        s.setShotsOutsideBox(tryParseInt(get(row, indexOf(header, "shots_outside_box" + suffix, header))));
-        s.setShotsWoodwork(tryParseInt(get(row, indexOf(header, "shots_woodwork" + suffix, header))));
-        s.setTotalShots(tryParseInt(get(row, indexOf(header, "total_shots" + suffix, header))));
-        s.setTouchesOppBox(tryParseInt(get(row, indexOf(header, "touches_opp_box" + suffix, header))));
-        s.setYellowCards(tryParseInt(get(row, indexOf(header, "yellow_cards" + suffix, header))));
-        return s;
-    }
-
-    private static int indexOf(String[] header, String name, String[] fullHeader) {
-        for (int i = 0; i < header.length; i++) if (name.equals(header[i])) return i;
-        return -1;
-    }
-
-    private static String get(String[] row, int idx) {
+    static String get(String[] row, int idx) {
         if (idx < 0 || idx >= row.length) return null;
         String v = row[idx];
         return v == null || v.isEmpty() ? null : v.trim();
     }
 
-    private static Integer tryParseInt(String v) {
+    static Integer tryParseInt(String v) {
         try {
-            if (v == null) return null;
+            if (v == null || notANumber(v)) return null;
             return Integer.valueOf(v);
         } catch (Exception e) {
             return null;
         }
     }
 
-    private static Double tryParseDouble(String v) {
+    static Double tryParseDouble(String v) {
         try {
-            if (v == null) return null;
+            if (v == null || notANumber(v)) return null;
             return Double.valueOf(v);
         } catch (Exception e) {
             return null;
         }
     }
 
-    private static Instant tryParseInstant(String v) {
+    /**
+     * Szybkie odrzucenie wartości typu "338 (81%)" (kilka kolumn w każdym wierszu) bez kosztu wyjątku.
+     * Wartości są już przycięte, więc spacja, nawias czy % oznaczają, że valueOf i tak by nie przeszło.
+     */
+    private static boolean notANumber(String v) {
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == ' ' || c == '(' || c == '%') return true;
+        }
+        return false;
+    }
+
+    static Instant tryParseInstant(String v) {
         try {
             if (v == null) return null;
             return Instant.parse(v);
@@ -238,6 +362,47 @@ public class CSVFileReader {
         }
     }
 
+    /**
+     * Wiersz jako tablica Stringów (opencsv).
+     */
+    record StringArrayRow(String[] values) implements CsvRow {
+
+        @Override
+        public int length() {
+            return values.length;
+        }
+
+        @Override
+        public String text(int column) {
+            return get(values, column);
+        }
+
+        @Override
+        public Integer intValue(int column) {
+            return tryParseInt(get(values, column));
+        }
+
+        @Override
+        public Double doubleValue(int column) {
+            return tryParseDouble(get(values, column));
+        }
+
+        @Override
+        public Instant instant(int column) {
+            return tryParseInstant(get(values, column));
+        }
+    }
+
+    /**
+     * Jeden wiersz pliku: ten sam mecz jako fixture i jako wynik (wspólne statystyki).
+     */
+    public record ParsedRow(MatchFixture fixture, MatchResult result) {
+
+        public boolean finished() {
+            return result.isFinished();
+        }
+    }
+
     public static class ReadResult {
         public final List<MatchFixture> fixtures;
         public final List<MatchResult> results;
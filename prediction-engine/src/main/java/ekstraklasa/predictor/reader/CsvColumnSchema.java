@@ -0,0 +1,224 @@
+package ekstraklasa.predictor.reader;
+
+import ekstraklasa.predictor.model.MatchStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Mapowanie pól na indeksy kolumn, wyznaczane raz z nagłówka pliku - wiersze czytane są już
+ * tylko po indeksach (bez szukania nazw w nagłówku dla każdego pola).
+ *
+ * Brak kolumny wymaganej (REQUIRED) -> IOException od razu, z listą braków. Brak pozostałych
+ * kolumn i kolumny nieznane (np. zmiana nazwy w eksporcie) są logowane - pola dostają null.
+ */
+@Slf4j
+public final class CsvColumnSchema {
+
+    public static final String HOME_SUFFIX = "__home";
+    public static final String AWAY_SUFFIX = "__away";
+
+    /**
+     * Pola meczu (jedna kolumna na pole).
+     */
+    public enum MatchField {
+        MATCH_ID("matchId"),
+        ROUND("round"),
+        ROUND_NAME("roundName"),
+        PAGE_URL("pageUrl"),
+        HOME_NAME("homeName"),
+        HOME_ID("homeId"),
+        AWAY_NAME("awayName"),
+        AWAY_ID("awayId"),
+        UTC_TIME("utcTime"),
+        FINISHED("finished"),
+        SCORE_STR("scoreStr");
+
+        public final String column;
+
+        MatchField(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * Statystyki drużyny - kolumny "column__home" i "column__away".
+     */
+    public enum StatField {
+        BALL_POSSESSION("BallPossesion", MatchStats::getBallPossession, (s, r, c) -> s.setBallPossession(r.doubleValue(c))),
+        OFFSIDES("Offsides", MatchStats::getOffsides, (s, r, c) -> s.setOffsides(r.intValue(c))),
+        SHOTS_OFF_TARGET("ShotsOffTarget", MatchStats::getShotsOffTarget, (s, r, c) -> s.setShotsOffTarget(r.intValue(c))),
+        SHOTS_ON_TARGET("ShotsOnTarget", MatchStats::getShotsOnTarget, (s, r, c) -> s.setShotsOnTarget(r.intValue(c))),
+        ACCURATE_CROSSES("accurate_crosses", MatchStats::getAccurateCrosses, (s, r, c) -> s.setAccurateCrosses(r.intValue(c))),
+        ACCURATE_PASSES("accurate_passes", MatchStats::getAccuratePasses, (s, r, c) -> s.setAccuratePasses(r.intValue(c))),
+        AERIALS_WON("aerials_won", MatchStats::getAerialsWon, (s, r, c) -> s.setAerialsWon(r.intValue(c))),
+        BIG_CHANCE("big_chance", MatchStats::getBigChance, (s, r, c) -> s.setBigChance(r.intValue(c))),
+        BIG_CHANCE_MISSED_TITLE("big_chance_missed_title", MatchStats::getBigChanceMissedTitle, (s, r, c) -> s.setBigChanceMissedTitle(r.intValue(c))),
+        BLOCKED_SHOTS("blocked_shots", MatchStats::getBlockedShots, (s, r, c) -> s.setBlockedShots(r.intValue(c))),
+        CLEARANCES("clearances", MatchStats::getClearances, (s, r, c) -> s.setClearances(r.intValue(c))),
+        CORNERS("corners", MatchStats::getCorners, (s, r, c) -> s.setCorners(r.intValue(c))),
+        DEFENSE("defense", MatchStats::getDefense, (s, r, c) -> s.setDefense(r.doubleValue(c))),
+        DISCIPLINE("discipline", MatchStats::getDiscipline, (s, r, c) -> s.setDiscipline(r.intValue(c))),
+        DRIBBLES_SUCCEEDED("dribbles_succeeded", MatchStats::getDribblesSucceeded, (s, r, c) -> s.setDribblesSucceeded(r.intValue(c))),
+        DUEL_WON("duel_won", MatchStats::getDuelWon, (s, r, c) -> s.setDuelWon(r.intValue(c))),
+        DUELS("duels", MatchStats::getDuels, (s, r, c) -> s.setDuels(r.intValue(c))),
+        EXPECTED_GOALS("expected_goals", MatchStats::getExpectedGoals, (s, r, c) -> s.setExpectedGoals(r.doubleValue(c))),
+        EXPECTED_GOALS_NON_PENALTY("expected_goals_non_penalty", MatchStats::getExpectedGoalsNonPenalty, (s, r, c) -> s.setExpectedGoalsNonPenalty(r.doubleValue(c))),
+        EXPECTED_GOALS_ON_TARGET("expected_goals_on_target", MatchStats::getExpectedGoalsOnTarget, (s, r, c) -> s.setExpectedGoalsOnTarget(r.doubleValue(c))),
+        EXPECTED_GOALS_OPEN_PLAY("expected_goals_open_play", MatchStats::getExpectedGoalsOpenPlay, (s, r, c) -> s.setExpectedGoalsOpenPlay(r.doubleValue(c))),
+        EXPECTED_GOALS_SET_PLAY("expected_goals_set_play", MatchStats::getExpectedGoalsSetPlay, (s, r, c) -> s.setExpectedGoalsSetPlay(r.doubleValue(c))),
+        FOULS("fouls", MatchStats::getFouls, (s, r, c) -> s.setFouls(r.intValue(c))),
+        GROUND_DUELS_WON("ground_duels_won", MatchStats::getGroundDuelsWon, (s, r, c) -> s.setGroundDuelsWon(r.intValue(c))),
+        INTERCEPTIONS("interceptions", MatchStats::getInterceptions, (s, r, c) -> s.setInterceptions(r.intValue(c))),
+        KEEPER_SAVES("keeper_saves", MatchStats::getKeeperSaves, (s, r, c) -> s.setKeeperSaves(r.intValue(c))),
+        LONG_BALLS_ACCURATE("long_balls_accurate", MatchStats::getLongBallsAccurate, (s, r, c) -> s.setLongBallsAccurate(r.intValue(c))),
+        TACKLES("matchstats.headers.tackles", MatchStats::getTackles, (s, r, c) -> s.setTackles(r.intValue(c))),
+        OPPOSITION_HALF_PASSES("opposition_half_passes", MatchStats::getOppositionHalfPasses, (s, r, c) -> s.setOppositionHalfPasses(r.intValue(c))),
+        OWN_HALF_PASSES("own_half_passes", MatchStats::getOwnHalfPasses, (s, r, c) -> s.setOwnHalfPasses(r.intValue(c))),
+        PASSES("passes", MatchStats::getPasses, (s, r, c) -> s.setPasses(r.intValue(c))),
+        PLAYER_THROWS("player_throws", MatchStats::getPlayerThrows, (s, r, c) -> s.setPlayerThrows(r.intValue(c))),
+        RED_CARDS("red_cards", MatchStats::getRedCards, (s, r, c) -> s.setRedCards(r.intValue(c))),
+        SHOT_BLOCKS("shot_blocks", MatchStats::getShotBlocks, (s, r, c) -> s.setShotBlocks(r.intValue(c))),
+        SHOTS("shots", MatchStats::getShots, (s, r, c) -> s.setShots(r.intValue(c))),
+        SHOTS_INSIDE_BOX("shots_inside_box", MatchStats::getShotsInsideBox, (s, r, c) -> s.setShotsInsideBox(r.intValue(c))),
+        SHOTS_OUTSIDE_BOX("shots_outside_box", MatchStats::getShotsOutsideBox, (s, r, c) -> s.setShotsOutsideBox(r.intValue(c))),
+        SHOTS_WOODWORK("shots_woodwork", MatchStats::getShotsWoodwork, (s, r, c) -> s.setShotsWoodwork(r.intValue(c))),
+        TOTAL_SHOTS("total_shots", MatchStats::getTotalShots, (s, r, c) -> s.setTotalShots(r.intValue(c))),
+        TOUCHES_OPP_BOX("touches_opp_box", MatchStats::getTouchesOppBox, (s, r, c) -> s.setTouchesOppBox(r.intValue(c))),
+        YELLOW_CARDS("yellow_cards", MatchStats::getYellowCards, (s, r, c) -> s.setYellowCards(r.intValue(c)));
+
+        public final String column;
+        final Function<MatchStats, Number> getter;
+        final StatSetter setter;
+
+        StatField(String column, Function<MatchStats, Number> getter, StatSetter setter) {
+            this.column = column;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    @FunctionalInterface
+    interface StatSetter {
+        void set(MatchStats stats, CsvRow row, int column);
+    }
+
+    // bez nich wiersz nie daje meczu ani wyniku
+    public static final Set<MatchField> REQUIRED = EnumSet.of(
+            MatchField.MATCH_ID, MatchField.HOME_NAME, MatchField.AWAY_NAME, MatchField.FINISHED, MatchField.SCORE_STR);
+
+    private static final MatchField[] MATCH_FIELDS = MatchField.values();
+    private static final StatField[] STAT_FIELDS = StatField.values();
+
+    // indeks kolumny po ordinal() pola; -1 - brak kolumny
+    private final int[] matchColumns;
+    private final int[] homeStatColumns;
+    private final int[] awayStatColumns;
+    private final int headerLength;
+    private final List<String> missingColumns;
+
+    private CsvColumnSchema(int[] matchColumns, int[] homeStatColumns, int[] awayStatColumns, int headerLength, List<String> missingColumns) {
+        this.matchColumns = matchColumns;
+        this.homeStatColumns = homeStatColumns;
+        this.awayStatColumns = awayStatColumns;
+        this.headerLength = headerLength;
+        this.missingColumns = missingColumns;
+    }
+
+    /**
+     * @throws IOException gdy brakuje którejś z kolumn REQUIRED
+     */
+    public static CsvColumnSchema resolve(String[] header) throws IOException {
+        Map<String, Integer> indexByName = new HashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) {
+            if (header[i] != null) indexByName.putIfAbsent(header[i].trim(), i);
+        }
+
+        Set<String> known = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+        List<String> missingRequired = new ArrayList<>();
+
+        int[] matchColumns = new int[MATCH_FIELDS.length];
+        for (MatchField field : MATCH_FIELDS) {
+            matchColumns[field.ordinal()] = lookup(indexByName, field.column, known, missing);
+            if (matchColumns[field.ordinal()] < 0 && REQUIRED.contains(field)) missingRequired.add(field.column);
+        }
+
+        int[] homeStatColumns = new int[STAT_FIELDS.length];
+        int[] awayStatColumns = new int[STAT_FIELDS.length];
+        for (StatField field : STAT_FIELDS) {
+            homeStatColumns[field.ordinal()] = lookup(indexByName, field.column + HOME_SUFFIX, known, missing);
+            awayStatColumns[field.ordinal()] = lookup(indexByName, field.column + AWAY_SUFFIX, known, missing);
+        }
+
+        if (!missingRequired.isEmpty()) {
+            throw new IOException("CSV header is missing required columns: " + missingRequired);
+        }
+        if (!missing.isEmpty()) {
+            log.warn("CSV header is missing {} columns (values will be null): {}", missing.size(), missing);
+        }
+        List<String> unknown = indexByName.keySet().stream().filter(name -> !known.contains(name)).sorted().toList();
+        if (!unknown.isEmpty()) {
+            log.warn("CSV header has {} unknown columns (renamed?): {}", unknown.size(), unknown);
+        }
+
+        return new CsvColumnSchema(matchColumns, homeStatColumns, awayStatColumns, header.length, List.copyOf(missing));
+    }
+
+    public int headerLength() {
+        return headerLength;
+    }
+
+    public List<String> missingColumns() {
+        return missingColumns;
+    }
+
+    String get(CsvRow row, MatchField field) {
+        return row.text(matchColumns[field.ordinal()]);
+    }
+
+    Integer intValue(CsvRow row, MatchField field) {
+        return row.intValue(matchColumns[field.ordinal()]);
+    }
+
+    Instant instant(CsvRow row, MatchField field) {
+        return row.instant(matchColumns[field.ordinal()]);
+    }
+
+    MatchStats homeStats(CsvRow row) {
+        return buildStats(row, homeStatColumns);
+    }
+
+    MatchStats awayStats(CsvRow row) {
+        return buildStats(row, awayStatColumns);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static MatchStats buildStats(CsvRow row, int[] columns) {
+        MatchStats s = new MatchStats();
+        for (StatField field : STAT_FIELDS) {
+            field.setter.set(s, row, columns[field.ordinal()]);
+        }
+        return s;
+    }
+
+    private static int lookup(Map<String, Integer> indexByName, String column, Set<String> known, List<String> missing) {
+        known.add(column);
+        Integer index = indexByName.get(column);
+        if (index == null) {
+            missing.add(column);
+            return -1;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,38 @@
+package ekstraklasa.predictor.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Wiersz CSV czytany po indeksach kolumn. Wartości jak w CSVFileReader.get / tryParse*:
+ * pusta komórka albo brak kolumny -> null, tekst przycięty (trim), niepoprawna liczba lub data -> null.
+ */
+interface CsvRow {
+
+    int length();
+
+    String text(int column);
+
+    Integer intValue(int column);
+
+    Double doubleValue(int column);
+
+    Instant instant(int column);
+
+    /**
+     * Źródło kolejnych wierszy pliku (opencsv albo MappedCsvReader).
+     */
+    interface Source extends Closeable {
+
+        /**
+         * Pierwszy rekord bez przycinania; null - pusty plik.
+         */
+        String[] header() throws IOException;
+
+        /**
+         * Kolejny wiersz albo null na końcu pliku. Zwrócony wiersz może być ważny tylko do następnego wywołania.
+         */
+        CsvRow next() throws IOException;
+    }
+}
@@ -0,0 +1,394 @@
+package ekstraklasa.predictor.reader;
+
+import com.opencsv.CSVParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Parser CSV na pliku zmapowanym w pamięć - bajty skanowane w miejscu, bez dekodowania wiersza do
+ * tablicy Stringów jak w opencsv. Rekord to tylko offsety pól w buforze; Stringi powstają wyłącznie
+ * dla pól tekstowych trafiających do modelu, a liczby i daty są parsowane bezpośrednio z bajtów:
+ * - int: [+-]?cyfry (do 9 cyfr),
+ * - double: [+-]?cyfry[.cyfry] (do 15 cyfr) - szybka ścieżka Clingera: mantysa i potęga 10 są dokładne
+ *   w double, więc jedno dzielenie daje wynik poprawnie zaokrąglony, taki sam jak Double.valueOf,
+ * - instant: yyyy-MM-ddTHH:mm:ss[.fffffffff]Z.
+ * Pozostałe wartości (np. "338 (81%)") idą dotychczasową ścieżką CSVFileReader.tryParse*, więc wynik
+ * jest identyczny jak przy opencsv.
+ *
+ * Wiersze dzielone jak w BufferedReader.readLine (\n, \r, \r\n). Wiersz z cudzysłowem albo backslashem
+ * (escape w opencsv) parsuje CSVParser z opencsv - razem z kolejnymi wierszami rekordu wielowierszowego.
+ *
+ * Obiekt jest jednocześnie bieżącym wierszem (CsvRow) - ważnym do następnego wywołania next().
+ * Do równoległego czytania plik dzielony jest na granicach rekordów (recordBoundaries), a każda część
+ * czytana osobnym obiektem (slice) na wspólnym, tylko do odczytu buforze.
+ */
+final class MappedCsvReader implements CsvRow, CsvRow.Source {
+
+    private static final int MAX_INT_DIGITS = 9;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final int[] NANOS_SCALE = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
+    private static final int SECONDS_PER_DAY = 86_400;
+    // bajty kończące szybki skan wiersza, powielone na 8 pozycji słowa
+    private static final long LF = 0x0A0A0A0A0A0A0A0AL;
+    private static final long CR = 0x0D0D0D0D0D0D0D0DL;
+    private static final long QUOTE = 0x2222222222222222L;
+    private static final long BACKSLASH = 0x5C5C5C5C5C5C5C5CL;
+
+    private ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    // pola bieżącego rekordu: bajty [starts[i], ends[i])
+    private int[] starts = new int[128];
+    private int[] ends = new int[128];
+    private int fieldCount;
+
+    // wartość wybrana przez select(): bajty [from, to) po przycięciu
+    private int from;
+    private int to;
+
+    private byte[] scratch = new byte[256];
+    private CSVParser quotedParser;
+
+    private MappedCsvReader(ByteBuffer buffer, int position, int limit) {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * @return null gdy plik nie mieści się w jednym mapowaniu (> 2 GB)
+     */
+    static MappedCsvReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) return null;
+            // mapowanie pozostaje ważne po zamknięciu kanału
+            return new MappedCsvReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), 0, (int) size);
+        }
+    }
+
+    /**
+     * Dzieli dane od bieżącej pozycji (np. po nagłówku) na parts części o zbliżonej liczbie bajtów.
+     * Granice wyznacza sekwencyjny przebieg po rekordach tą samą logiką co next() - także rekordy
+     * wielowierszowe w cudzysłowie - więc każda część zaczyna się dokładnie tam, gdzie zacząłby się
+     * rekord przy czytaniu całości. Sam przebieg to tylko skan bajtów po 8 naraz (skipLine), bez
+     * wyznaczania pól - ułamek kosztu parsowania.
+     *
+     * @return parts + 1 rosnących offsetów; część i to [boundaries[i], boundaries[i + 1])
+     */
+    int[] recordBoundaries(int parts) throws IOException {
+        int start = position;
+        long span = limit - start;
+        int[] boundaries = new int[parts + 1];
+        boundaries[0] = start;
+
+        int next = 1;
+        while (next < parts && position < limit) {
+            if (!skipLine()) parseQuoted();
+            while (next < parts && position >= start + span * next / parts) {
+                boundaries[next++] = position;
+            }
+        }
+        while (next <= parts) {
+            boundaries[next++] = limit;
+        }
+        position = start;
+        return boundaries;
+    }
+
+    /**
+     * Osobny reader dla bajtów [from, to) tego samego pliku - from i to muszą być granicami rekordów.
+     */
+    MappedCsvReader slice(int from, int to) {
+        return new MappedCsvReader(buffer.duplicate(), from, to);
+    }
+
+    @Override
+    public String[] header() throws IOException {
+        if (position >= limit) return null;
+        if (!splitLine()) return parseQuoted();
+
+        String[] header = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            header[i] = decode(starts[i], ends[i]);
+        }
+        return header;
+    }
+
+    @Override
+    public CsvRow next() throws IOException {
+        if (position >= limit) return null;
+        if (!splitLine()) return new CSVFileReader.StringArrayRow(parseQuoted());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        // bufor zwalnia GC - bez jawnego unmap
+        buffer = null;
+    }
+
+    @Override
+    public int length() {
+        return fieldCount;
+    }
+
+    @Override
+    public String text(int column) {
+        return select(column) ? decode(from, to) : null;
+    }
+
+    @Override
+    public Integer intValue(int column) {
+        if (!select(column)) return null;
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        int digits = to - i;
+        if (digits > 0 && digits <= MAX_INT_DIGITS) {
+            int value = 0;
+            for (; i < to; i++) {
+                int d = buffer.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                value = value * 10 + d;
+            }
+            if (i == to) return negative ? -value : value;
+        }
+        return notANumber() ? null : CSVFileReader.tryParseInt(decode(from, to));
+    }
+
+    @Override
+    public Double doubleValue(int column) {
+        if (!select(column)) return null;
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_EXACT_DIGITS) break;
+                mantissa = mantissa * 10 + (b - '0');
+                if (dot) fractionDigits++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (i == to && digits > 0) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return notANumber() ? null : CSVFileReader.tryParseDouble(decode(from, to));
+    }
+
+    @Override
+    public Instant instant(int column) {
+        if (!select(column)) return null;
+
+        Instant instant = parseIsoInstant();
+        return instant != null ? instant : CSVFileReader.tryParseInstant(decode(from, to));
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    /**
+     * Dzieli wiersz od position na pola i przesuwa position za koniec wiersza.
+     *
+     * @return false (position bez zmian) gdy wiersz zawiera cudzysłów lub backslash
+     */
+    private boolean splitLine() {
+        int field = 0;
+        starts[0] = position;
+        int i = position;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == ',') {
+                ends[field++] = i;
+                if (field == starts.length) {
+                    starts = Arrays.copyOf(starts, field * 2);
+                    ends = Arrays.copyOf(ends, field * 2);
+                }
+                starts[field] = i + 1;
+            } else if (b == '\n' || b == '\r') {
+                break;
+            } else if (b == '"' || b == '\\') {
+                return false;
+            }
+            i++;
+        }
+        ends[field] = i;
+        fieldCount = field + 1;
+        position = skipLineTerminator(i);
+        return true;
+    }
+
+    /**
+     * Przesuwa position za koniec wiersza bez dzielenia na pola. Słowa 8-bajtowe bez \n, \r, cudzysłowu
+     * i backslasha są pomijane w całości (test bajtu w słowie: (x - 0x01..01) & ~x & 0x80..80 != 0 gdy
+     * któryś bajt x jest zerem, tu x = słowo XOR szukany bajt powielony).
+     *
+     * @return false (position bez zmian) gdy wiersz zawiera cudzysłów lub backslash
+     */
+    private boolean skipLine() {
+        int i = position;
+        while (i + Long.BYTES <= limit && !hasSpecialByte(buffer.getLong(i))) {
+            i += Long.BYTES;
+        }
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') break;
+            if (b == '"' || b == '\\') return false;
+            i++;
+        }
+        position = skipLineTerminator(i);
+        return true;
+    }
+
+    private static boolean hasSpecialByte(long word) {
+        return hasByte(word, LF) || hasByte(word, CR) || hasByte(word, QUOTE) || hasByte(word, BACKSLASH);
+    }
+
+    private static boolean hasByte(long word, long pattern) {
+        long x = word ^ pattern;
+        return ((x - 0x0101010101010101L) & ~x & 0x8080808080808080L) != 0;
+    }
+
+    /**
+     * Rekord z cudzysłowami - tak jak CSVReader.readNext: kolejne wiersze, dopóki parser czeka na domknięcie.
+     */
+    private String[] parseQuoted() throws IOException {
+        if (quotedParser == null) quotedParser = new CSVParser();
+
+        String[] result = new String[0];
+        do {
+            if (position >= limit) {
+                throw new IOException("Unterminated quoted field at end of CSV: " + quotedParser.getPendingText());
+            }
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') end++;
+            String line = decode(position, end);
+            position = skipLineTerminator(end);
+
+            String[] tokens = quotedParser.parseLineMulti(line);
+            int length = result.length;
+            result = Arrays.copyOf(result, length + tokens.length);
+            System.arraycopy(tokens, 0, result, length, tokens.length);
+        } while (quotedParser.isPending());
+        return result;
+    }
+
+    private int skipLineTerminator(int i) {
+        if (i >= limit) return i;
+        if (buffer.get(i) == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') return i + 2;
+        return i + 1;
+    }
+
+    /**
+     * Ustawia [from, to) na przyciętą wartość kolumny (jak String.trim).
+     *
+     * @return false gdy brak kolumny albo komórka jest pusta
+     */
+    private boolean select(int column) {
+        if (column < 0 || column >= fieldCount) return false;
+        int start = starts[column];
+        int end = ends[column];
+        if (start == end) return false;
+
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') start++;
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') end--;
+        from = start;
+        to = end;
+        return true;
+    }
+
+    /**
+     * Odpowiednik CSVFileReader.notANumber na bajtach wybranej wartości.
+     */
+    private boolean notANumber() {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == ' ' || b == '(' || b == '%') return true;
+        }
+        return false;
+    }
+
+    private Instant parseIsoInstant() {
+        int length = to - from;
+        if (length < 20 || length == 21 || length > 30) return null;
+        if (buffer.get(from + 4) != '-' || buffer.get(from + 7) != '-' || buffer.get(from + 10) != 'T'
+                || buffer.get(from + 13) != ':' || buffer.get(from + 16) != ':' || buffer.get(to - 1) != 'Z') {
+            return null;
+        }
+
+        int year = digits(from, 4);
+        int month = digits(from + 5, 2);
+        int day = digits(from + 8, 2);
+        int hour = digits(from + 11, 2);
+        int minute = digits(from + 14, 2);
+        int second = digits(from + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        int nanos = 0;
+        if (length > 20) {
+            if (buffer.get(from + 19) != '.') return null;
+            int fractionDigits = length - 21;
+            int fraction = digits(from + 20, fractionDigits);
+            if (fraction < 0) return null;
+            nanos = fraction * NANOS_SCALE[fractionDigits];
+        }
+
+        long epochDay = LocalDate.of(year, month, day).toEpochDay();
+        return Instant.ofEpochSecond(epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second, nanos);
+    }
+
+    /**
+     * @return wartość count cyfr od offsetu albo -1, gdy któryś bajt nie jest cyfrą
+     */
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (length == 0) return "";
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
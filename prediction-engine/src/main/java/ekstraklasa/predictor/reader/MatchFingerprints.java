@@ -0,0 +1,124 @@
+package ekstraklasa.predictor.reader;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.MatchResult;
+import ekstraklasa.predictor.model.MatchStats;
+import ekstraklasa.predictor.reader.CsvColumnSchema.StatField;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 64-bitowe odciski sparsowanego pliku, osobno dla części, od których zależą kolejne etapy:
+ * - outcome: wynik meczu (zakończony, bramki, zwycięzca, drużyny) - tabela i Monte Carlo,
+ * - stats: statystyki obu drużyn (wszystkie StatField) - siły drużyn,
+ * - fixture: mecz do rozegrania (id, drużyny) - Monte Carlo.
+ * Pola nieużywane w obliczeniach (pageUrl, nazwa kolejki, godzina meczu) nie wchodzą do odcisków.
+ *
+ * Wiersze bez matchId dostają klucz z pozycji w pliku - zmiana ich kolejności jest wtedy widoczna jako zmiana.
+ */
+public final class MatchFingerprints {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long NULL_MARKER = 0x9E3779B97F4A7C15L;
+    private static final StatField[] STAT_FIELDS = StatField.values();
+
+    /**
+     * Odciski jednego meczu (0 - brak tej części, np. mecz tylko w fixtures).
+     */
+    public record Row(long outcome, long stats, long fixture) {
+    }
+
+    /**
+     * @param rows         odciski po matchId
+     * @param resultOrder  kolejność wyników w pliku (okno ostatnich meczów w sile drużyn)
+     * @param clubs        lista drużyn w kolejności (rozmiar i indeksy tabeli)
+     */
+    public record Fingerprints(Map<String, Row> rows, long resultOrder, long clubs) {
+    }
+
+    private MatchFingerprints() {
+    }
+
+    public static Fingerprints of(CSVFileReader.ReadResult read) {
+        Map<String, long[]> parts = new HashMap<>();
+        long resultOrder = SEED;
+
+        for (int i = 0; i < read.results.size(); i++) {
+            MatchResult result = read.results.get(i);
+            String key = key(result.getMatchId(), "result", i);
+            long[] row = parts.computeIfAbsent(key, k -> new long[3]);
+            row[0] = mix(row[0], outcome(result));
+            row[1] = mix(row[1], mix(stats(result.getHomeMatchStats()), stats(result.getAwayMatchStats())));
+            resultOrder = mix(resultOrder, text(key));
+        }
+        for (int i = 0; i < read.fixtures.size(); i++) {
+            MatchFixture fixture = read.fixtures.get(i);
+            long[] row = parts.computeIfAbsent(key(fixture.getMatchId(), "fixture", i), k -> new long[3]);
+            row[2] = mix(row[2], fixture(fixture));
+        }
+
+        long clubs = SEED;
+        for (FootballClub club : read.clubs) {
+            clubs = mix(clubs, mix(text(club.getCode()), text(club.getName())));
+        }
+
+        Map<String, Row> rows = new HashMap<>(parts.size() * 2);
+        parts.forEach((key, row) -> rows.put(key, new Row(row[0], row[1], row[2])));
+        return new Fingerprints(rows, resultOrder, clubs);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static String key(String matchId, String table, int index) {
+        return matchId != null ? matchId : table + "#" + index;
+    }
+
+    private static long outcome(MatchResult result) {
+        long h = mix(SEED, result.isFinished() ? 1 : 2);
+        h = mix(h, number(result.getHomeGoals()));
+        h = mix(h, number(result.getAwayGoals()));
+        h = mix(h, result.getWinner() == null ? NULL_MARKER : text(result.getWinner().name()));
+        h = mix(h, text(result.getHomeTeamCode()));
+        return mix(h, text(result.getAwayTeamCode()));
+    }
+
+    private static long fixture(MatchFixture fixture) {
+        long h = mix(SEED, text(fixture.getMatchId()));
+        h = mix(h, text(fixture.getHomeTeamCode()));
+        return mix(h, text(fixture.getAwayTeamCode()));
+    }
+
+    private static long stats(MatchStats stats) {
+        if (stats == null) return NULL_MARKER;
+        long h = SEED;
+        for (StatField field : STAT_FIELDS) {
+            h = mix(h, number(field.getter.apply(stats)));
+        }
+        return h;
+    }
+
+    private static long number(Number value) {
+        if (value == null) return NULL_MARKER;
+        // 2 i 2.0 to różne wartości w pliku - typ wchodzi do odcisku
+        return value instanceof Integer i ? mix(1, i) : mix(2, Double.doubleToLongBits(value.doubleValue()));
+    }
+
+    private static long text(String value) {
+        if (value == null) return NULL_MARKER;
+        long h = mix(SEED, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            h = mix(h, value.charAt(i));
+        }
+        return h;
+    }
+
+    // mieszanie w stylu splitmix64 - każdy bit wejścia zmienia średnio połowę bitów wyniku
+    private static long mix(long h, long value) {
+        long z = h + value * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,618 @@
+package ekstraklasa.predictor.reader;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.MatchResult;
+import ekstraklasa.predictor.model.MatchStats;
+import ekstraklasa.predictor.model.Winner;
+import ekstraklasa.predictor.reader.CsvColumnSchema.StatField;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Binarny, kolumnowy zapis sparsowanego pliku (ReadResult) - kolejne wczytania tego samego CSV mapują
+ * plik w pamięć i odtwarzają obiekty kolumna po kolumnie, bez parsowania tekstu.
+ *
+ * Układ pliku (big-endian):
+ * - nagłówek: magic "EKRS", wersja formatu, odcisk listy statystyk (StatField), SHA-256 źródłowego CSV,
+ * - słownik napisów: liczba, potem (długość, bajty UTF-8) - kody, nazwy i id drużyn zapisane raz,
+ * - tabele fixtures, results i clubs: liczba wierszy, potem kolumny.
+ * Kolumna napisów to indeksy słownika (-1 = null). Kolumny liczb i dat mają bitmapę nulli (long na 64
+ * wiersze) i wartości prymitywne dla wszystkich wierszy. Liczby całkowite zapisywane są na 1, 2 albo
+ * 4 bajtach (szerokość z zakresu wartości kolumny), a statystyki ułamkowe jako liczby całkowite ze skalą
+ * dziesiętną (2.47 -> 247, skala 2), jeśli dzielenie odtwarza dokładnie ten sam double - inaczej jako double.
+ *
+ * Inny hash źródła, inna wersja albo zmieniona lista statystyk - snapshot jest pomijany i zapisywany od nowa.
+ */
+@Slf4j
+public final class ReadResultSnapshot {
+
+    public static final String SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x454B5253; // "EKRS"
+    private static final int FORMAT_VERSION = 1;
+    private static final StatField[] STAT_FIELDS = StatField.values();
+    // nowa lub zmieniona kolumna statystyk unieważnia stare snapshoty bez podbijania wersji
+    private static final int STATS_FINGERPRINT = Arrays.stream(STAT_FIELDS).map(f -> f.column).toList().hashCode();
+    private static final int HASH_BYTES = 32;
+    private static final int MAX_DECIMAL_SCALE = 4;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4};
+    // skala kolumny statystyk zapisanej jako surowe double
+    private static final byte RAW_DOUBLE = -1;
+
+    /**
+     * Parsowanie CSV wykonywane, gdy snapshotu nie ma albo jest nieaktualny.
+     */
+    @FunctionalInterface
+    public interface Parser {
+        CSVFileReader.ReadResult parse() throws IOException;
+    }
+
+    private ReadResultSnapshot() {
+    }
+
+    /**
+     * Aktualny snapshot albo wynik parsera zapisany jako nowy snapshot (błąd zapisu tylko logowany).
+     */
+    public static CSVFileReader.ReadResult readThrough(Path snapshot, byte[] sourceHash, Parser parser) throws IOException {
+        CSVFileReader.ReadResult cached = read(snapshot, sourceHash);
+        if (cached != null) {
+            log.info("Loaded parsed CSV from snapshot {}", snapshot);
+            touch(snapshot);
+            return cached;
+        }
+
+        CSVFileReader.ReadResult parsed = parser.parse();
+        try {
+            write(parsed, snapshot, sourceHash);
+            log.info("Wrote parsed CSV snapshot {}", snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write CSV snapshot {} - next load will parse the CSV again", snapshot, e);
+        }
+        return parsed;
+    }
+
+    /**
+     * Usuwa z dir snapshoty poza keep ostatnio zapisanymi albo użytymi (readThrough odświeża datę modyfikacji).
+     * Błędy tylko logowane - snapshot jest wyłącznie cache.
+     */
+    public static void prune(Path dir, int keep) {
+        if (!Files.isDirectory(dir)) return;
+
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(dir)) {
+            snapshots = files
+                    .filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(ReadResultSnapshot::lastModified).reversed())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list CSV snapshots in {}", dir, e);
+            return;
+        }
+        for (Path stale : snapshots.subList(Math.min(Math.max(keep, 0), snapshots.size()), snapshots.size())) {
+            try {
+                Files.deleteIfExists(stale);
+                log.info("Deleted stale CSV snapshot {}", stale);
+            } catch (IOException e) {
+                log.warn("Could not delete stale CSV snapshot {}", stale, e);
+            }
+        }
+    }
+
+    /**
+     * @return null gdy snapshotu nie ma, jest nieaktualny (hash, wersja) albo nie da się go odczytać
+     */
+    public static CSVFileReader.ReadResult read(Path snapshot, byte[] sourceHash) {
+        if (!Files.isRegularFile(snapshot)) return null;
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), sourceHash, snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable CSV snapshot {}", snapshot, e);
+            return null;
+        }
+    }
+
+    /**
+     * Zapis przez plik tymczasowy i atomowe podmienienie - czytający widzi stary albo nowy snapshot.
+     */
+    public static void write(CSVFileReader.ReadResult result, Path snapshot, byte[] sourceHash) throws IOException {
+        byte[] encoded = encode(result, sourceHash);
+
+        Path dir = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, snapshot.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, encoded);
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Snapshot w pamięci (np. do zapisu w bazie) - ten sam format co plik.
+     *
+     * @param sourceHash SHA-256 źródła; null - zapisywane same zera, a odczyt sprawdza tylko format
+     */
+    public static byte[] encode(CSVFileReader.ReadResult result, byte[] sourceHash) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(columns);
+        writeFixtures(out, result.fixtures, dictionary);
+        writeResults(out, result.results, dictionary);
+        writeClubs(out, result.clubs, dictionary);
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(columns.size() + 1024);
+        try (DataOutputStream file = new DataOutputStream(encoded)) {
+            file.writeInt(MAGIC);
+            file.writeInt(FORMAT_VERSION);
+            file.writeInt(STATS_FINGERPRINT);
+            file.write(sourceHash != null ? sourceHash : new byte[HASH_BYTES], 0, HASH_BYTES);
+
+            file.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                file.writeInt(bytes.length);
+                file.write(bytes);
+            }
+            columns.writeTo(file);
+        }
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Odczyt snapshotu z encode, bez sprawdzania hasha źródła.
+     *
+     * @return null gdy snapshot ma inny format (wersja, lista statystyk)
+     * @throws IllegalArgumentException gdy snapshot jest uszkodzony
+     */
+    public static CSVFileReader.ReadResult decode(byte[] encoded) {
+        try {
+            return decode(ByteBuffer.wrap(encoded), null, "(in memory)");
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Corrupted CSV snapshot", e);
+        }
+    }
+
+    public static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += Integer.MAX_VALUE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(Integer.MAX_VALUE, size - offset)));
+            }
+        }
+        return digest.digest();
+    }
+
+    public static byte[] sha256(byte[] content) {
+        return sha256().digest(content);
+    }
+
+    // sourceHash null - hash źródła nie jest sprawdzany
+    private static CSVFileReader.ReadResult decode(ByteBuffer in, byte[] sourceHash, Object source) {
+        if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getInt() != STATS_FINGERPRINT) {
+            log.info("CSV snapshot {} has a different format - ignoring it", source);
+            return null;
+        }
+        byte[] hash = new byte[HASH_BYTES];
+        in.get(hash);
+        if (sourceHash != null && !MessageDigest.isEqual(hash, sourceHash)) {
+            log.info("CSV snapshot {} is stale (source changed) - ignoring it", source);
+            return null;
+        }
+
+        String[] dictionary = readDictionary(in);
+        List<MatchFixture> fixtures = readFixtures(in, dictionary);
+        List<MatchResult> results = readResults(in, dictionary);
+        List<FootballClub> clubs = readClubs(in, dictionary);
+        return new CSVFileReader.ReadResult(fixtures, results, clubs);
+    }
+
+    // --- tabele (kolejność kolumn przy odczycie taka sama jak przy zapisie) ---------------
+
+    private static void writeFixtures(DataOutputStream out, List<MatchFixture> rows, Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(rows.size());
+        writeStrings(out, rows, MatchFixture::getMatchId, dictionary);
+        writeInts(out, rows, MatchFixture::getRound);
+        writeStrings(out, rows, MatchFixture::getRoundName, dictionary);
+        writeStrings(out, rows, MatchFixture::getPageUrl, dictionary);
+        writeStrings(out, rows, MatchFixture::getHomeName, dictionary);
+        writeStrings(out, rows, MatchFixture::getHomeId, dictionary);
+        writeStrings(out, rows, MatchFixture::getHomeTeamCode, dictionary);
+        writeStrings(out, rows, MatchFixture::getAwayName, dictionary);
+        writeStrings(out, rows, MatchFixture::getAwayId, dictionary);
+        writeStrings(out, rows, MatchFixture::getAwayTeamCode, dictionary);
+        writeInstants(out, rows, MatchFixture::getUtcTime);
+        writeStats(out, rows, MatchFixture::getHomeMatchStats);
+        writeStats(out, rows, MatchFixture::getAwayMatchStats);
+    }
+
+    private static List<MatchFixture> readFixtures(ByteBuffer in, String[] dictionary) {
+        List<MatchFixture> rows = newRows(in.getInt(), MatchFixture::new);
+        readStrings(in, rows, MatchFixture::setMatchId, dictionary);
+        readInts(in, rows, MatchFixture::setRound);
+        readStrings(in, rows, MatchFixture::setRoundName, dictionary);
+        readStrings(in, rows, MatchFixture::setPageUrl, dictionary);
+        readStrings(in, rows, MatchFixture::setHomeName, dictionary);
+        readStrings(in, rows, MatchFixture::setHomeId, dictionary);
+        readStrings(in, rows, MatchFixture::setHomeTeamCode, dictionary);
+        readStrings(in, rows, MatchFixture::setAwayName, dictionary);
+        readStrings(in, rows, MatchFixture::setAwayId, dictionary);
+        readStrings(in, rows, MatchFixture::setAwayTeamCode, dictionary);
+        readInstants(in, rows, MatchFixture::setUtcTime);
+        readStats(in, rows, MatchFixture::setHomeMatchStats);
+        readStats(in, rows, MatchFixture::setAwayMatchStats);
+        return rows;
+    }
+
+    private static void writeResults(DataOutputStream out, List<MatchResult> rows, Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(rows.size());
+        writeStrings(out, rows, MatchResult::getMatchId, dictionary);
+        writeBits(out, rows, MatchResult::isFinished);
+        writeStrings(out, rows, MatchResult::getScoreStr, dictionary);
+        for (MatchResult row : rows) {
+            out.writeByte(row.getWinner() == null ? -1 : row.getWinner().ordinal());
+        }
+        writeInts(out, rows, MatchResult::getHomeGoals);
+        writeInts(out, rows, MatchResult::getAwayGoals);
+        writeStrings(out, rows, MatchResult::getHomeTeamCode, dictionary);
+        writeStrings(out, rows, MatchResult::getAwayTeamCode, dictionary);
+        writeStats(out, rows, MatchResult::getHomeMatchStats);
+        writeStats(out, rows, MatchResult::getAwayMatchStats);
+    }
+
+    private static List<MatchResult> readResults(ByteBuffer in, String[] dictionary) {
+        List<MatchResult> rows = newRows(in.getInt(), MatchResult::new);
+        readStrings(in, rows, MatchResult::setMatchId, dictionary);
+        long[] finished = readBits(in, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setFinished(bit(finished, i));
+        }
+        readStrings(in, rows, MatchResult::setScoreStr, dictionary);
+        Winner[] winners = Winner.values();
+        for (MatchResult row : rows) {
+            byte winner = in.get();
+            row.setWinner(winner < 0 ? null : winners[winner]);
+        }
+        readInts(in, rows, MatchResult::setHomeGoals);
+        readInts(in, rows, MatchResult::setAwayGoals);
+        readStrings(in, rows, MatchResult::setHomeTeamCode, dictionary);
+        readStrings(in, rows, MatchResult::setAwayTeamCode, dictionary);
+        readStats(in, rows, MatchResult::setHomeMatchStats);
+        readStats(in, rows, MatchResult::setAwayMatchStats);
+        return rows;
+    }
+
+    private static void writeClubs(DataOutputStream out, List<FootballClub> rows, Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(rows.size());
+        writeStrings(out, rows, FootballClub::getId, dictionary);
+        writeStrings(out, rows, FootballClub::getName, dictionary);
+        writeStrings(out, rows, FootballClub::getCode, dictionary);
+    }
+
+    private static List<FootballClub> readClubs(ByteBuffer in, String[] dictionary) {
+        List<FootballClub> rows = newRows(in.getInt(), FootballClub::new);
+        readStrings(in, rows, FootballClub::setId, dictionary);
+        readStrings(in, rows, FootballClub::setName, dictionary);
+        readStrings(in, rows, FootballClub::setCode, dictionary);
+        return rows;
+    }
+
+    // --- kolumny -------------------------------------------------------------------------
+
+    private static <T> void writeStrings(DataOutputStream out, List<T> rows, Function<T, String> column,
+                                         Map<String, Integer> dictionary) throws IOException {
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = column.apply(rows.get(i));
+            indexes[i] = value == null ? -1 : dictionary.computeIfAbsent(value, k -> dictionary.size());
+        }
+        writeIntColumn(out, indexes);
+    }
+
+    private static <T> void readStrings(ByteBuffer in, List<T> rows, BiConsumer<T, String> column, String[] dictionary) {
+        int[] indexes = readIntColumn(in, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            column.accept(rows.get(i), indexes[i] < 0 ? null : dictionary[indexes[i]]);
+        }
+    }
+
+    private static <T> void writeInts(DataOutputStream out, List<T> rows, Function<T, Integer> column) throws IOException {
+        writeBits(out, rows, row -> column.apply(row) != null);
+        int[] values = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Integer value = column.apply(rows.get(i));
+            values[i] = value == null ? 0 : value;
+        }
+        writeIntColumn(out, values);
+    }
+
+    private static <T> void readInts(ByteBuffer in, List<T> rows, BiConsumer<T, Integer> column) {
+        long[] present = readBits(in, rows.size());
+        int[] values = readIntColumn(in, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (bit(present, i)) column.accept(rows.get(i), values[i]);
+        }
+    }
+
+    private static <T> void writeInstants(DataOutputStream out, List<T> rows, Function<T, Instant> column) throws IOException {
+        writeBits(out, rows, row -> column.apply(row) != null);
+        int[] nanos = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Instant value = column.apply(rows.get(i));
+            out.writeLong(value == null ? 0 : value.getEpochSecond());
+            nanos[i] = value == null ? 0 : value.getNano();
+        }
+        writeIntColumn(out, nanos);
+    }
+
+    private static <T> void readInstants(ByteBuffer in, List<T> rows, BiConsumer<T, Instant> column) {
+        long[] present = readBits(in, rows.size());
+        long[] seconds = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            seconds[i] = in.getLong();
+        }
+        int[] nanos = readIntColumn(in, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (bit(present, i)) column.accept(rows.get(i), Instant.ofEpochSecond(seconds[i], nanos[i]));
+        }
+    }
+
+    /**
+     * Statystyki jednej strony: bitmapa obecności obiektu, potem kolumna na każde StatField.
+     */
+    private static <T> void writeStats(DataOutputStream out, List<T> rows, Function<T, MatchStats> side) throws IOException {
+        writeBits(out, rows, row -> side.apply(row) != null);
+        for (StatField field : STAT_FIELDS) {
+            List<Number> values = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                MatchStats stats = side.apply(row);
+                values.add(stats == null ? null : field.getter.apply(stats));
+            }
+            int scale = decimalScale(values);
+
+            out.writeByte(scale);
+            writeBits(out, values, v -> v != null);
+            if (scale == RAW_DOUBLE) {
+                for (Number value : values) {
+                    out.writeDouble(value == null ? 0.0 : value.doubleValue());
+                }
+            } else {
+                int[] scaled = new int[values.size()];
+                for (int i = 0; i < scaled.length; i++) {
+                    Number value = values.get(i);
+                    scaled[i] = value == null ? 0 : (int) Math.round(value.doubleValue() * POWERS_OF_TEN[scale]);
+                }
+                writeIntColumn(out, scaled);
+            }
+        }
+    }
+
+    private static <T> void readStats(ByteBuffer in, List<T> rows, BiConsumer<T, MatchStats> side) {
+        long[] present = readBits(in, rows.size());
+        MatchStats[] stats = new MatchStats[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            if (bit(present, i)) {
+                stats[i] = new MatchStats();
+                side.accept(rows.get(i), stats[i]);
+            }
+        }
+
+        NumberCell cell = new NumberCell();
+        for (StatField field : STAT_FIELDS) {
+            cell.scale = in.get();
+            long[] nonNull = readBits(in, rows.size());
+            double[] raw = cell.scale == RAW_DOUBLE ? new double[rows.size()] : null;
+            int[] scaled = null;
+            if (raw != null) {
+                for (int i = 0; i < raw.length; i++) {
+                    raw[i] = in.getDouble();
+                }
+            } else {
+                scaled = readIntColumn(in, rows.size());
+            }
+
+            for (int i = 0; i < rows.size(); i++) {
+                if (stats[i] == null || !bit(nonNull, i)) continue;
+                if (raw != null) cell.raw = raw[i];
+                else cell.scaled = scaled[i];
+                field.setter.set(stats[i], cell, field.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Kolumna liczb całkowitych: bajt szerokości (1, 2 albo 4) wybranej z zakresu wartości, potem wartości.
+     */
+    private static void writeIntColumn(DataOutputStream out, int[] values) throws IOException {
+        int min = 0;
+        int max = 0;
+        for (int value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        int width = min >= Byte.MIN_VALUE && max <= Byte.MAX_VALUE ? Byte.BYTES
+                : min >= Short.MIN_VALUE && max <= Short.MAX_VALUE ? Short.BYTES
+                : Integer.BYTES;
+
+        out.writeByte(width);
+        for (int value : values) {
+            switch (width) {
+                case Byte.BYTES -> out.writeByte(value);
+                case Short.BYTES -> out.writeShort(value);
+                default -> out.writeInt(value);
+            }
+        }
+    }
+
+    private static int[] readIntColumn(ByteBuffer in, int count) {
+        int width = in.get();
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = switch (width) {
+                case Byte.BYTES -> in.get();
+                case Short.BYTES -> in.getShort();
+                default -> in.getInt();
+            };
+        }
+        return values;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    // użyty snapshot liczy się w prune jak świeżo zapisany
+    private static void touch(Path snapshot) {
+        try {
+            Files.setLastModifiedTime(snapshot, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Could not update modification time of CSV snapshot {}", snapshot, e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static <T> void writeBits(DataOutputStream out, List<T> rows, Predicate<T> set) throws IOException {
+        long[] bits = new long[(rows.size() + 63) >>> 6];
+        for (int i = 0; i < rows.size(); i++) {
+            if (set.test(rows.get(i))) bits[i >>> 6] |= 1L << i;
+        }
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    private static long[] readBits(ByteBuffer in, int rows) {
+        long[] bits = new long[(rows + 63) >>> 6];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.getLong();
+        }
+        return bits;
+    }
+
+    private static boolean bit(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static String[] readDictionary(ByteBuffer in) {
+        String[] dictionary = new String[in.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    private static <T> List<T> newRows(int count, Supplier<T> factory) {
+        List<T> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(factory.get());
+        }
+        return rows;
+    }
+
+    /**
+     * Najmniejsza skala, przy której każda wartość to int / 10^skala z dokładnie tym samym double
+     * (bitowo, więc -0.0 i NaN zostają jako RAW_DOUBLE).
+     */
+    private static int decimalScale(List<Number> values) {
+        for (int scale = 0; scale <= MAX_DECIMAL_SCALE; scale++) {
+            boolean exact = true;
+            for (Number value : values) {
+                if (value != null && !exactAtScale(value.doubleValue(), scale)) {
+                    exact = false;
+                    break;
+                }
+            }
+            if (exact) return scale;
+        }
+        return RAW_DOUBLE;
+    }
+
+    private static boolean exactAtScale(double value, int scale) {
+        double scaled = value * POWERS_OF_TEN[scale];
+        if (!(Math.abs(scaled) <= Integer.MAX_VALUE)) return false;
+        double restored = Math.round(scaled) / POWERS_OF_TEN[scale];
+        return Double.doubleToRawLongBits(restored) == Double.doubleToRawLongBits(value);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Jedna wartość kolumny statystyk podana setterowi StatField (ten sam, którym czyta CsvColumnSchema).
+     */
+    private static final class NumberCell implements CsvRow {
+        int scale;
+        int scaled;
+        double raw;
+
+        @Override
+        public int length() {
+            return 1;
+        }
+
+        @Override
+        public String text(int column) {
+            return null;
+        }
+
+        @Override
+        public Integer intValue(int column) {
+            return scale == 0 ? scaled : (int) value();
+        }
+
+        @Override
+        public Double doubleValue(int column) {
+            return value();
+        }
+
+        private double value() {
+            return scale == RAW_DOUBLE ? raw : scaled / POWERS_OF_TEN[scale];
+        }
+
+        @Override
+        public Instant instant(int column) {
+            return null;
+        }
+    }
+}
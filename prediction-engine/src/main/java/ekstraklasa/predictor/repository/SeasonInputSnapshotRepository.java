@@ -0,0 +1,16 @@
+package ekstraklasa.predictor.repository;
+
+import ekstraklasa.predictor.entity.SeasonInputSnapshotEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface SeasonInputSnapshotRepository extends MongoRepository<SeasonInputSnapshotEntity, String> {
+
+    Optional<SeasonInputSnapshotEntity> findByTimestamp(Instant timestamp);
+
+    // potrzebny jest tylko plik najnowszego snapshotu - starsze usuwane po zapisie nowego
+    void deleteByTimestampLessThan(Instant timestamp);
+
+}
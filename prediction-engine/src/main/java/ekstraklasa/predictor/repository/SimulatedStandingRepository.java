@@ -3,6 +3,7 @@ package ekstraklasa.predictor.repository;
 import ekstraklasa.predictor.entity.SimulatedStandingEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +13,14 @@ public interface SimulatedStandingRepository extends MongoRepository<SimulatedSt
 
     Optional<SimulatedStandingEntity> findTopByFootballClubCodeOrderByTimestampDesc(String footballClubCode);
 
+    // migracja do dokumentów per snapshot
+    Optional<SnapshotTimestamp> findFirstByTimestampNotNullOrderByTimestampDesc();
+
+    List<SimulatedStandingEntity> findByTimestamp(Instant timestamp);
+
+    long deleteByTimestamp(Instant timestamp);
+
+    long countByTimestampIsNull();
+
 }
 
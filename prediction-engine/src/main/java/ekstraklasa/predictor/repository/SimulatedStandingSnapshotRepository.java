@@ -0,0 +1,32 @@
+package ekstraklasa.predictor.repository;
+
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface SimulatedStandingSnapshotRepository extends MongoRepository<SimulatedStandingSnapshotEntity, String> {
+
+    // najnowszy snapshot: projekcja samego timestampu po malejącym indeksie, potem odczyt punktowy
+    Optional<SnapshotTimestamp> findFirstByOrderByTimestampDesc();
+
+    Optional<SimulatedStandingSnapshotEntity> findByTimestamp(Instant timestamp);
+
+    boolean existsByTimestamp(Instant timestamp);
+
+    // historia jednej drużyny po indeksie (club, timestamp); z dokumentu tylko jej wpis ('standings.$')
+    @Query(value = "{ 'standings.footballClubCode': ?0 }",
+            fields = "{ 'timestamp': 1, 'simulations': 1, 'standings.$': 1 }",
+            sort = "{ 'timestamp': -1 }")
+    Stream<SimulatedStandingSnapshotEntity> streamClubHistory(String footballClubCode, Limit limit);
+
+    @Query(value = "{ 'standings.footballClubCode': ?0, 'timestamp': { $lt: ?1 } }",
+            fields = "{ 'timestamp': 1, 'simulations': 1, 'standings.$': 1 }",
+            sort = "{ 'timestamp': -1 }")
+    Stream<SimulatedStandingSnapshotEntity> streamClubHistoryBefore(String footballClubCode, Instant before, Limit limit);
+
+}
@@ -0,0 +1,13 @@
+package ekstraklasa.predictor.repository;
+
+import java.time.Instant;
+
+/**
+ * Projekcja samego timestampu snapshotu - zapytanie o najnowszy snapshot czyta tylko pole z indeksu,
+ * bez wyników drużyn.
+ */
+public interface SnapshotTimestamp {
+
+    Instant getTimestamp();
+
+}
@@ -3,6 +3,7 @@ package ekstraklasa.predictor.repository;
 import ekstraklasa.predictor.entity.TeamStrengthEntity;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +13,14 @@ public interface TeamStrengthRepository extends MongoRepository<TeamStrengthEnti
 
     Optional<TeamStrengthEntity> findTopByFootballClubCodeOrderByTimestampDesc(String footballClubCode);
 
+    // migracja do dokumentów per snapshot
+    Optional<SnapshotTimestamp> findFirstByTimestampNotNullOrderByTimestampDesc();
+
+    List<TeamStrengthEntity> findByTimestamp(Instant timestamp);
+
+    long deleteByTimestamp(Instant timestamp);
+
+    long countByTimestampIsNull();
+
 }
 
@@ -0,0 +1,32 @@
+package ekstraklasa.predictor.repository;
+
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface TeamStrengthSnapshotRepository extends MongoRepository<TeamStrengthSnapshotEntity, String> {
+
+    // najnowszy snapshot: projekcja samego timestampu po malejącym indeksie, potem odczyt punktowy
+    Optional<SnapshotTimestamp> findFirstByOrderByTimestampDesc();
+
+    Optional<TeamStrengthSnapshotEntity> findByTimestamp(Instant timestamp);
+
+    boolean existsByTimestamp(Instant timestamp);
+
+    // historia jednej drużyny po indeksie (club, timestamp); z dokumentu tylko jej wpis ('strengths.$')
+    @Query(value = "{ 'strengths.footballClubCode': ?0 }",
+            fields = "{ 'timestamp': 1, 'strengths.$': 1 }",
+            sort = "{ 'timestamp': -1 }")
+    Stream<TeamStrengthSnapshotEntity> streamClubHistory(String footballClubCode, Limit limit);
+
+    @Query(value = "{ 'strengths.footballClubCode': ?0, 'timestamp': { $lt: ?1 } }",
+            fields = "{ 'timestamp': 1, 'strengths.$': 1 }",
+            sort = "{ 'timestamp': -1 }")
+    Stream<TeamStrengthSnapshotEntity> streamClubHistoryBefore(String footballClubCode, Instant before, Limit limit);
+
+}
@@ -0,0 +1,151 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.cache.ClubHistoryCache;
+import ekstraklasa.predictor.entity.SimulatedStandingEntry;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
+import ekstraklasa.predictor.model.ClubStandingHistoryPage;
+import ekstraklasa.predictor.model.ClubStandingHistoryPoint;
+import ekstraklasa.predictor.model.ClubStrengthHistoryPage;
+import ekstraklasa.predictor.model.ClubStrengthHistoryPoint;
+import ekstraklasa.predictor.repository.SimulatedStandingSnapshotRepository;
+import ekstraklasa.predictor.repository.TeamStrengthSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Historia jednej drużyny w kolejnych snapshotach, od najnowszego, stronicowana kursorem.
+ *
+ * Kursor to timestamp ostatniego snapshotu na stronie - kolejna strona zaczyna się od starszych
+ * (indeks (club, timestamp), bez skip), więc nowe snapshoty nie przesuwają stron. Odczyt strumieniowy,
+ * po limit + 1 dokumentów (ten dodatkowy mówi tylko, czy jest następna strona). Niepoprawny kursor
+ * lub limit -> IllegalArgumentException.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClubHistoryService {
+
+    public static final int MAX_LIMIT = 500;
+
+    private final SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository;
+    private final TeamStrengthSnapshotRepository teamStrengthSnapshotRepository;
+    private final ClubHistoryCache clubHistoryCache;
+
+    @Value("${history.page.default-limit:50}")
+    private int defaultLimit;
+
+    public ClubStandingHistoryPage standings(String footballClubCode, String cursor, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        Instant before = decodeCursor(cursor);
+        return clubHistoryCache.getStandings(cacheKey(footballClubCode, before, pageSize), () -> {
+            List<ClubStandingHistoryPoint> items = new ArrayList<>();
+            try (Stream<SimulatedStandingSnapshotEntity> snapshots = before == null
+                    ? simulatedStandingSnapshotRepository.streamClubHistory(footballClubCode, Limit.of(pageSize + 1))
+                    : simulatedStandingSnapshotRepository.streamClubHistoryBefore(footballClubCode, before, Limit.of(pageSize + 1))) {
+                snapshots.forEachOrdered(snapshot -> items.add(toPoint(snapshot)));
+            }
+
+            String nextCursor = null;
+            if (items.size() > pageSize) {
+                items.removeLast();
+                nextCursor = encodeCursor(items.getLast().getTimestamp());
+            }
+            return new ClubStandingHistoryPage()
+                    .footballClubCode(footballClubCode)
+                    .items(items)
+                    .nextCursor(nextCursor);
+        });
+    }
+
+    public ClubStrengthHistoryPage strengths(String footballClubCode, String cursor, Integer limit) {
+        int pageSize = resolveLimit(limit);
+        Instant before = decodeCursor(cursor);
+        return clubHistoryCache.getStrengths(cacheKey(footballClubCode, before, pageSize), () -> {
+            List<ClubStrengthHistoryPoint> items = new ArrayList<>();
+            try (Stream<TeamStrengthSnapshotEntity> snapshots = before == null
+                    ? teamStrengthSnapshotRepository.streamClubHistory(footballClubCode, Limit.of(pageSize + 1))
+                    : teamStrengthSnapshotRepository.streamClubHistoryBefore(footballClubCode, before, Limit.of(pageSize + 1))) {
+                snapshots.forEachOrdered(snapshot -> items.add(new ClubStrengthHistoryPoint()
+                        .timestamp(toOffsetDateTime(snapshot.getTimestamp()))
+                        .strength(snapshot.getStrengths() == null || snapshot.getStrengths().isEmpty()
+                                ? null
+                                : snapshot.getStrengths().getFirst().getStrength())));
+            }
+
+            String nextCursor = null;
+            if (items.size() > pageSize) {
+                items.removeLast();
+                nextCursor = encodeCursor(items.getLast().getTimestamp());
+            }
+            return new ClubStrengthHistoryPage()
+                    .footballClubCode(footballClubCode)
+                    .items(items)
+                    .nextCursor(nextCursor);
+        });
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) return Math.min(defaultLimit, MAX_LIMIT);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be in range 1.." + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    private static ClubStandingHistoryPoint toPoint(SimulatedStandingSnapshotEntity snapshot) {
+        ClubStandingHistoryPoint point = new ClubStandingHistoryPoint()
+                .timestamp(toOffsetDateTime(snapshot.getTimestamp()))
+                .simulations(snapshot.getSimulations());
+        // projekcja 'standings.$' zostawia tylko wpis tej drużyny
+        if (snapshot.getStandings() != null && !snapshot.getStandings().isEmpty()) {
+            SimulatedStandingEntry e = snapshot.getStandings().getFirst();
+            point.matchPlayed(e.getMatchPlayed())
+                    .ranking(e.getRanking())
+                    .points(e.getPoints())
+                    .top4Prediction(e.getTop4Prediction())
+                    .relegationPrediction(e.getRelegationPrediction())
+                    .top4PredictionError(e.getTop4PredictionError())
+                    .relegationPredictionError(e.getRelegationPredictionError());
+        }
+        return point;
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant timestamp) {
+        return timestamp == null ? null : OffsetDateTime.ofInstant(timestamp, ZoneOffset.UTC);
+    }
+
+    private static String cacheKey(String footballClubCode, Instant before, int limit) {
+        return footballClubCode + "|" + (before == null ? "" : before.toEpochMilli()) + "|" + limit;
+    }
+
+    // timestampy w Mongo mają precyzję milisekund - kursor to epoch millis
+    private static String encodeCursor(OffsetDateTime timestamp) {
+        String millis = Long.toString(timestamp.toInstant().toEpochMilli());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(millis.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Instant decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String millis = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Instant.ofEpochMilli(Long.parseLong(millis));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
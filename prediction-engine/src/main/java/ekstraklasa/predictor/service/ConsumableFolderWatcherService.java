@@ -1,29 +1,55 @@
 package ekstraklasa.predictor.service;
 
-import ekstraklasa.predictor.cache.SimulatedStandingCacheRepository;
-import ekstraklasa.predictor.cache.TeamStrengthCacheRepository;
+import ekstraklasa.predictor.cache.SnapshotInvalidationTransport;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
+import ekstraklasa.predictor.model.IngestDelta;
+import ekstraklasa.predictor.model.IngestJob;
+import ekstraklasa.predictor.model.IngestStage;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent.SnapshotKind;
 import ekstraklasa.predictor.reader.CSVFileReader;
+import ekstraklasa.predictor.reader.MatchFingerprints;
+import ekstraklasa.predictor.reader.MatchFingerprints.Fingerprints;
+import ekstraklasa.predictor.reader.ReadResultSnapshot;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Obserwuje folder consumable (WatchService) i dodaje do ConsumableIngestQueue pliki CSV, które przestały się
+ * zmieniać przez consumable.watch.quiet-ms. Kolejkę przetwarza w tle IngestJobService (consumeFile).
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ConsumableFolderWatcherService {
 
     private final SimulatedStandingService simulatedStandingService;
-    private final SimulatedStandingCacheRepository simulatedStandingCacheRepository;
-
     private final TeamStrengthService teamStrengthService;
-    private final TeamStrengthCacheRepository teamStrengthCacheRepository;
+    private final ConsumableIngestQueue consumableIngestQueue;
+    private final IngestDeltaService ingestDeltaService;
+    private final SeasonStateService seasonStateService;
+
+    // zapisane snapshoty przełączają cache na wszystkich instancjach
+    private final SnapshotInvalidationTransport snapshotInvalidationTransport;
 
     @Value("${consumable.folder.path:${user.dir}/resources/consumable}")
     private String consumableFolderPath;
@@ -31,75 +57,269 @@ public class ConsumableFolderWatcherService {
     @Value("${consumable.montecarlo.simulations:20000}")
     private int monteCarloSimulations;
 
+    // wątki parsujące duże pliki (archiwa kilku sezonów); 0 - liczba rdzeni
+    @Value("${consumable.ingest.parallelism:0}")
+    private int ingestParallelism;
+
+    // binarne snapshoty sparsowanych plików (ReadResultSnapshot)
+    @Value("${reader.snapshot.path:${user.dir}/resources/snapshots}")
+    private String snapshotPath;
+
+    // liczba snapshotów zostawianych po przetworzeniu pliku (ostatnio zapisane albo użyte)
+    @Value("${reader.snapshot.keep:3}")
+    private int snapshotKeep;
+
+    // plik uznawany jest za kompletny, gdy przez tyle ms nie przyszło dla niego żadne zdarzenie zapisu
+    @Value("${consumable.watch.quiet-ms:2000}")
+    private long quietMs;
+
+    // ostatnie zdarzenie (System.nanoTime) dla plików, które jeszcze się zapisują - w kolejności pojawienia się
+    private final Map<Path, Long> settling = new LinkedHashMap<>();
+    private volatile WatchService watchService;
+    private volatile boolean running = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        Thread.ofVirtual().name("consumable-folder-watcher").start(this::watchLoop);
+    }
+
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        running = false;
+        WatchService service = watchService;
+        if (service != null) service.close();
+    }
+
     /**
-     * Trigger method.
+     * Trigger method - ponownie przegląda folder (np. gdy system plików nie wysyła zdarzeń).
+     * Pliki niezmieniane dłużej niż okres ciszy trafiają od razu do kolejki, pozostałe po jego upływie;
+     * przetwarzane są w tle.
      *
-     * @return true  -> jeśli znaleziono i przetworzono plik
-     *         false -> jeśli nie znaleziono żadnego pliku CSV
+     * @return true  -> jeśli w kolejce są pliki do przetworzenia
+     *         false -> jeśli nie znaleziono żadnego pliku CSV do przetworzenia
      */
     public boolean consume() {
-
-        Path dir = Paths.get(consumableFolderPath).toAbsolutePath();
-
         try {
-            if (!Files.exists(dir)) {
-                log.info("Consumable folder does not exist, creating: {}", dir);
-                Files.createDirectories(dir);
+            List<Path> csvFiles = listCsvFiles();
+            long quietSince = System.currentTimeMillis() - quietMs;
+            for (Path path : csvFiles) {
+                if (Files.getLastModifiedTime(path).toMillis() <= quietSince) {
+                    consumableIngestQueue.enqueue(path);
+                } else {
+                    markSettling(path, System.nanoTime(), false);
+                }
+            }
+            if (consumableIngestQueue.nextJob().isEmpty()) {
+                log.info("No CSV file to consume in {}", consumableFolder());
                 return false;
             }
+            return true;
 
-            Optional<Path> csvFile;
+        } catch (Exception e) {
+            log.error("Error during consume()", e);
+            return false;
+        }
+    }
 
-            try (Stream<Path> files = Files.list(dir)) {
-                csvFile = files
-                        .filter(Files::isRegularFile)
-                        .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".csv"))
-                        .findFirst();
-            }
+    /**
+     * Przetwarza wskazany plik, raportując etapy do job.
+     */
+    public void consumeFile(Path filePath, IngestJob job) throws Exception {
+        log.info("Found CSV file to consume: {}", filePath);
 
-            if (csvFile.isEmpty()) {
-                log.info("No CSV file found in {}", dir);
-                return false;
-            }
+        job.startStage(IngestStage.PARSE);
+        byte[] sourceHash = ReadResultSnapshot.sha256(filePath);
+        boolean identical = ingestDeltaService.isLastIngested(sourceHash);
+        CSVFileReader.ReadResult read = identical ? null : read(filePath, sourceHash);
+        Fingerprints fingerprints = identical ? null : MatchFingerprints.of(read);
 
-            Path filePath = csvFile.get();
-            log.info("Found CSV file to consume: {}", filePath);
+        IngestDelta delta = identical ? IngestDelta.of(IngestDelta.Kind.IDENTICAL) : ingestDeltaService.diff(fingerprints);
+        job.delta(delta);
+        log.info("File {} compared to the last ingested file: {} ({} results, {} fixtures, {} stats changed)",
+                filePath, delta.kind(), delta.changedResults().size(), delta.changedFixtures().size(), delta.changedStats().size());
 
-            waitForFileStable(filePath, 3, 300);
-            CSVFileReader.ReadResult read = CSVFileReader.readFromPath(filePath);
+        // dane do obliczeń bez zmian - poprzednie snapshoty zostają aktualne, a stan sezonu publikowany jest dla nich
+        if (!delta.inputChanged() && seasonStateService.publishUnchanged(() -> read != null ? read : read(filePath, sourceHash))) {
+            log.info("Results, fixtures and stats unchanged - keeping the previous simulated standings and team strengths");
+            job.finishStage();
+            return;
+        }
 
-            simulatedStandingService.generateAndSaveSimulatedStandings(
-                    read,
-                    monteCarloSimulations,
-                    Instant.now()
-            );
-            simulatedStandingCacheRepository.refresh();
+        CSVFileReader.ReadResult input = read != null ? read : read(filePath, sourceHash);
+        job.startStage(IngestStage.SIMULATION);
+        SimulatedStandingSnapshotEntity standings = simulatedStandingService.generateAndSaveSimulatedStandings(
+                input,
+                monteCarloSimulations,
+                Instant.now(),
+                job.getSimulationProgress()
+        );
+        job.startStage(IngestStage.STANDINGS_CACHE);
+        if (standings != null) {
+            snapshotInvalidationTransport.publish(new SnapshotCommittedEvent(SnapshotKind.SIMULATED_STANDINGS, standings.getTimestamp()));
+        }
 
-            teamStrengthService.calculateWithFile(read);
-            teamStrengthCacheRepository.refresh();
+        job.startStage(IngestStage.TEAM_STRENGTH);
+        TeamStrengthSnapshotEntity strengths = teamStrengthService.calculateWithFile(input);
+        job.startStage(IngestStage.STRENGTH_CACHE);
+        if (strengths != null) {
+            snapshotInvalidationTransport.publish(new SnapshotCommittedEvent(SnapshotKind.TEAM_STRENGTHS, strengths.getTimestamp()));
+        }
 
+        // identyczny plik przetworzony w całości (brak snapshotu standings) - punkt odniesienia się nie zmienia
+        if (fingerprints != null) ingestDeltaService.commit(sourceHash, fingerprints);
+        job.finishStage();
+    }
 
-            Files.deleteIfExists(filePath);
-            log.info("Successfully consumed and deleted file: {}", filePath);
+    /**
+     * Usuwa przetworzony plik i snapshoty ponad reader.snapshot.keep - wywoływane po zapisaniu DONE w kolejce.
+     */
+    public void deleteConsumed(Path filePath, IngestJob job) throws IOException {
+        job.startStage(IngestStage.CLEANUP);
+        Files.deleteIfExists(filePath);
+        ReadResultSnapshot.prune(Path.of(snapshotPath), snapshotKeep);
+        job.finishStage();
+        log.info("Successfully consumed and deleted file: {}", filePath);
+    }
 
-            return true;
+    // --- helper methods -----------------------------------------------------------------
 
-        } catch (Exception e) {
-            log.error("Error during consume()", e);
-            return false;
+    private CSVFileReader.ReadResult read(Path filePath, byte[] sourceHash) throws IOException {
+        int parallelism = ingestParallelism > 0 ? ingestParallelism : Runtime.getRuntime().availableProcessors();
+        return CSVFileReader.readFromPath(filePath, parallelism, Path.of(snapshotPath), sourceHash);
+    }
+
+    /**
+     * Zdarzenia CREATE/MODIFY przesuwają termin ciszy pliku; poll czeka do najbliższego terminu,
+     * po którym plik trafia do kolejki. Pliki obecne przy starcie traktowane są jak nowo utworzone.
+     */
+    private void watchLoop() {
+        while (running) {
+            try (WatchService service = FileSystems.getDefault().newWatchService()) {
+                watchService = service;
+                Path dir = consumableFolder();
+                Files.createDirectories(dir);
+                dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                log.info("Watching consumable folder {}", dir);
+                consume();
+
+                while (running) {
+                    long waitMs = nextQuietDeadlineMs();
+                    WatchKey key = waitMs < 0 ? service.take() : service.poll(waitMs, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        handleEvents(dir, key);
+                        if (!key.reset()) {
+                            log.warn("Consumable folder {} is no longer accessible - watching it again", dir);
+                            break;
+                        }
+                    }
+                    enqueueSettledFiles();
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                if (!running) return;
+                log.error("Consumable folder watcher failed, restarting", e);
+                try {
+                    Thread.sleep(quietMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleEvents(Path dir, WatchKey key) {
+        long now = System.nanoTime();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // utracone zdarzenia - przeglądamy cały folder
+                consume();
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (!isCsv(path)) continue;
+            if (event.kind() == ENTRY_DELETE) {
+                synchronized (settling) {
+                    settling.remove(path);
+                }
+                consumableIngestQueue.abandonSettling(path);
+            } else {
+                markSettling(path, now, true);
+            }
         }
     }
 
-    private void waitForFileStable(Path path, int attempts, long sleepMs) throws InterruptedException {
-        long previousSize = -1;
-        for (int i = 0; i < attempts; i++) {
+    private void enqueueSettledFiles() {
+        List<Path> settled = new ArrayList<>();
+        synchronized (settling) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<Path, Long>> it = settling.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, Long> entry = it.next();
+                if (now - entry.getValue() >= TimeUnit.MILLISECONDS.toNanos(quietMs)) {
+                    settled.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        for (Path path : settled) {
             try {
-                long size = Files.size(path);
-                if (size == previousSize) return;
-                previousSize = size;
-            } catch (IOException ignored) {
+                if (Files.isRegularFile(path)) consumableIngestQueue.enqueue(path);
+                else consumableIngestQueue.abandonSettling(path);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not queue consumable file {} - it will be retried on the next scan", path, e);
+                consumableIngestQueue.abandonSettling(path);
             }
-            Thread.sleep(sleepMs);
         }
     }
+
+    /**
+     * Zapisuje zdarzenie pliku; plik widziany pierwszy raz dostaje od razu zadanie w kolejce (QUEUED).
+     *
+     * @param restartQuietPeriod false - wcześniejsze zdarzenie zostaje (przegląd folderu nie jest zapisem)
+     */
+    private void markSettling(Path path, long now, boolean restartQuietPeriod) {
+        boolean added;
+        synchronized (settling) {
+            Long previous = restartQuietPeriod ? settling.put(path, now) : settling.putIfAbsent(path, now);
+            added = previous == null;
+        }
+        if (added) consumableIngestQueue.settling(path);
+    }
+
+    // ms do najbliższego końca okresu ciszy; -1 gdy nic się nie zapisuje
+    private long nextQuietDeadlineMs() {
+        synchronized (settling) {
+            long now = System.nanoTime();
+            return settling.values().stream()
+                    .mapToLong(last -> TimeUnit.NANOSECONDS.toMillis(last + TimeUnit.MILLISECONDS.toNanos(quietMs) - now) + 1)
+                    .map(ms -> Math.max(ms, 1))
+                    .min()
+                    .orElse(-1);
+        }
+    }
+
+    private List<Path> listCsvFiles() throws IOException {
+        Path dir = consumableFolder();
+        if (!Files.exists(dir)) {
+            log.info("Consumable folder does not exist, creating: {}", dir);
+            Files.createDirectories(dir);
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(ConsumableFolderWatcherService::isCsv)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path consumableFolder() {
+        return Paths.get(consumableFolderPath).toAbsolutePath();
+    }
+
+    private static boolean isCsv(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
 }
@@ -0,0 +1,415 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.IngestJob;
+import ekstraklasa.predictor.model.IngestJobState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trwała, uporządkowana kolejka plików z folderu consumable.
+ *
+ * Każda zmiana stanu jest dopisywana do dziennika (jedna linia: stan, rozmiar, data modyfikacji, ścieżka)
+ * i zrzucana na dysk przed zwróceniem - po restarcie kolejka odtwarza się z dziennika w tej samej kolejności.
+ * Wejście identyfikuje ścieżka, rozmiar i data modyfikacji; klucze zakończonych wejść (DONE, FAILED)
+ * są pamiętane, więc ten sam plik nie trafia do kolejki drugi raz. Plik zmieniony po błędzie ma nowy klucz
+ * i jest przetwarzany ponownie.
+ *
+ * Wejście przerwane restartem (STARTED bez DONE) wraca do kolejki na swoje miejsce, o ile plik nadal istnieje.
+ * DONE zapisywane jest przed usunięciem pliku - plik, który przetrwał restart po DONE, jest tylko usuwany.
+ *
+ * Kolejka jest też właścicielem zadań (IngestJob) dla wejść, które jeszcze nie zostały przetworzone:
+ * zadanie powstaje pod tą samą blokadą co wejście - już przy pierwszym zdarzeniu zapisu pliku (settling),
+ * a enqueue przejmuje je, gdy plik przestanie się zmieniać. Zadanie zwrócone przez nextJob() zawsze
+ * zostanie wykonane przez wątek przetwarzający albo zakończone (NO_INPUT), jeśli plik zniknie.
+ */
+@Slf4j
+@Component
+public class ConsumableIngestQueue {
+
+    // ile kluczy zakończonych wejść pamiętamy (dziennik i pamięć)
+    private static final int MAX_FINISHED_INPUTS = 1000;
+
+    enum State {
+        QUEUED, STARTED, DONE, FAILED
+    }
+
+    /**
+     * Wejście pobrane do przetworzenia razem z jego zadaniem.
+     */
+    public record Entry(QueuedInput input, IngestJob job) {
+    }
+
+    /**
+     * Wejście kolejki: plik w konkretnej wersji (rozmiar, data modyfikacji).
+     */
+    public record QueuedInput(Path path, long size, long modifiedMillis) {
+
+        public static QueuedInput of(Path path) throws IOException {
+            Path absolute = path.toAbsolutePath();
+            return new QueuedInput(absolute, Files.size(absolute), Files.getLastModifiedTime(absolute).toMillis());
+        }
+
+        public String inputKey() {
+            return path + "|" + size + "|" + modifiedMillis;
+        }
+
+        /**
+         * true, gdy plik nadal istnieje i nie zmienił się od dodania do kolejki.
+         */
+        boolean isCurrent() {
+            try {
+                return Files.isRegularFile(path) && of(path).equals(this);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    @Value("${consumable.queue.journal:${user.dir}/resources/consumable-queue.log}")
+    private String journalPath;
+
+    // po tylu dopisanych liniach dziennik jest przepisywany od nowa (tylko stan bieżący)
+    @Value("${consumable.queue.compact-after:1000}")
+    private int compactAfterRecords;
+
+    // kolejność = kolejność dodania
+    private final Set<QueuedInput> pending = new LinkedHashSet<>();
+    private final Map<QueuedInput, State> finished = new LinkedHashMap<>();
+    private QueuedInput inProgress;
+    // zadania wejść oczekujących i przetwarzanego
+    private final Map<QueuedInput, IngestJob> jobs = new HashMap<>();
+    // zadania plików, które jeszcze się zapisują (po ścieżce bezwzględnej), w kolejności pojawienia się
+    private final Map<Path, IngestJob> settling = new LinkedHashMap<>();
+
+    // bez synchronized - wątek wirtualny czekający w take() nie blokuje wątku nośnego
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private FileChannel journal;
+    private int recordsSinceCompaction;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        lock.lock();
+        try {
+            Path path = Path.of(journalPath);
+            if (Files.exists(path)) {
+                replay(path);
+            }
+
+            Iterator<QueuedInput> it = pending.iterator();
+            while (it.hasNext()) {
+                QueuedInput input = it.next();
+                if (!input.isCurrent()) {
+                    log.info("Dropping queued input {} - the file is gone or was modified since it was queued", input.path());
+                    it.remove();
+                }
+            }
+            compact();
+            pending.forEach(input -> jobs.put(input, new IngestJob(input.path())));
+            if (!pending.isEmpty()) {
+                log.info("Recovered {} queued consumable file(s) from {}", pending.size(), path);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plik pojawił się albo się zmienia - zadanie w stanie QUEUED powstaje od razu, wejście po okresie ciszy.
+     */
+    public IngestJob settling(Path path) {
+        lock.lock();
+        try {
+            return settling.computeIfAbsent(path.toAbsolutePath(), IngestJob::new);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plik zniknął, zanim przestał się zmieniać - jego zadanie kończy się bez przetwarzania.
+     */
+    public void abandonSettling(Path path) {
+        lock.lock();
+        try {
+            IngestJob job = settling.remove(path.toAbsolutePath());
+            if (job != null) job.finished(IngestJobState.NO_INPUT, "File was removed before it was queued");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dodaje plik na koniec kolejki, przejmując zadanie z settling(path), jeśli istnieje.
+     *
+     * @return zadanie, jeśli plik czeka w kolejce albo jest przetwarzany; pusty, gdy ten plik
+     *         (w tej wersji) został już przetworzony albo zakończył się błędem
+     */
+    public Optional<IngestJob> enqueue(Path path) throws IOException {
+        lock.lock();
+        try {
+            QueuedInput input = QueuedInput.of(path);
+            IngestJob settlingJob = settling.remove(input.path());
+
+            IngestJob existing = jobs.get(input);
+            if (existing != null) {
+                if (settlingJob != null) settlingJob.finished(IngestJobState.NO_INPUT, "File is already queued as job " + existing.getId());
+                return Optional.of(existing);
+            }
+
+            State state = finished.get(input);
+            if (state == State.DONE) {
+                // DONE zapisane, ale restart przerwał usuwanie pliku
+                log.info("File {} was already consumed - deleting leftover", input.path());
+                Files.deleteIfExists(input.path());
+                if (settlingJob != null) settlingJob.finished(IngestJobState.NO_INPUT, "File was already consumed");
+                return Optional.empty();
+            }
+            if (state == State.FAILED) {
+                log.debug("File {} failed before and is unchanged - not queueing again", input.path());
+                if (settlingJob != null) settlingJob.finished(IngestJobState.NO_INPUT, "File failed before and is unchanged");
+                return Optional.empty();
+            }
+
+            try {
+                append(State.QUEUED, input);
+            } catch (IOException | RuntimeException e) {
+                if (settlingJob != null) settling.put(input.path(), settlingJob);
+                throw e;
+            }
+            IngestJob job = settlingJob != null ? settlingJob : new IngestJob(input.path());
+            pending.add(input);
+            jobs.put(input, job);
+            log.info("Queued consumable file {} as job {} ({} pending)", input.path(), job.getId(), pending.size());
+            compactIfDue();
+            changed.signalAll();
+            return Optional.of(job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Czeka na następne wejście i oznacza je jako rozpoczęte. Wejścia przetwarzane są po jednym.
+     */
+    public Entry take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty() || inProgress != null) {
+                changed.await();
+            }
+            QueuedInput input = pending.iterator().next();
+            appendUnchecked(State.STARTED, input);
+            pending.remove(input);
+            inProgress = input;
+            compactIfDue();
+            return new Entry(input, jobs.get(input));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void complete(QueuedInput input) {
+        lock.lock();
+        try {
+            finish(input, State.DONE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void fail(QueuedInput input) {
+        lock.lock();
+        try {
+            finish(input, State.FAILED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Zadanie, które zostanie wykonane najwcześniej: przetwarzane, pierwsze oczekujące albo pierwszy
+     * plik, który jeszcze się zapisuje.
+     */
+    public Optional<IngestJob> nextJob() {
+        lock.lock();
+        try {
+            if (inProgress != null) return Optional.of(jobs.get(inProgress));
+            if (!pending.isEmpty()) return Optional.of(jobs.get(pending.iterator().next()));
+            return settling.values().stream().findFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    // stan w pamięci zmieniany także przy błędzie zapisu - inaczej take() czekałby bez końca na inProgress;
+    // dziennik bez DONE/FAILED oznacza tylko ponowne przetworzenie po restarcie
+    private void finish(QueuedInput input, State state) {
+        try {
+            appendUnchecked(state, input);
+        } finally {
+            pending.remove(input);
+            jobs.remove(input);
+            if (input.equals(inProgress)) inProgress = null;
+            remember(input, state);
+            compactIfDue();
+            changed.signalAll();
+        }
+    }
+
+    private void remember(QueuedInput input, State state) {
+        finished.remove(input);
+        finished.put(input, state);
+        if (finished.size() > MAX_FINISHED_INPUTS) {
+            Iterator<QueuedInput> oldest = finished.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void replay(Path path) throws IOException {
+        int lineNo = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            lineNo++;
+            String[] parts = line.split("\t", 4);
+            QueuedInput input;
+            State state;
+            try {
+                state = State.valueOf(parts[0]);
+                input = new QueuedInput(Path.of(parts[3]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                // ucięta ostatnia linia po awarii zapisu
+                log.warn("Skipping malformed ingest journal line {}: {}", lineNo, line);
+                continue;
+            }
+
+            switch (state) {
+                case QUEUED -> pending.add(input);
+                // bez DONE/FAILED dalej wejście zostaje w pending - przerwane restartem, przetwarzane od nowa
+                case STARTED -> {
+                }
+                case DONE, FAILED -> {
+                    pending.remove(input);
+                    remember(input, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Przepisuje dziennik: zapamiętane zakończone wejścia i oczekujące (w kolejności), przez plik tymczasowy.
+     * Kanał otwarty na pliku tymczasowym po podmienieniu pisze już do dziennika - stary kanał zamykany jest
+     * dopiero wtedy, więc przy błędzie dziennik zostaje otwarty (bez kompakcji).
+     */
+    private void compact() throws IOException {
+        Path path = Path.of(journalPath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+
+        StringBuilder content = new StringBuilder();
+        finished.forEach((input, state) -> content.append(record(state, input)));
+        // przetwarzane wejście wraca po restarcie do kolejki - na pierwsze miejsce
+        if (inProgress != null) {
+            content.append(record(State.QUEUED, inProgress)).append(record(State.STARTED, inProgress));
+        }
+        pending.forEach(input -> content.append(record(State.QUEUED, input)));
+
+        Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        FileChannel compacted = null;
+        try {
+            compacted = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            write(compacted, content.toString());
+            compacted.force(true);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (compacted != null) compacted.close();
+            throw e;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        FileChannel previous = journal;
+        journal = compacted;
+        recordsSinceCompaction = 0;
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                log.warn("Could not close the previous ingest journal channel", e);
+            }
+        }
+    }
+
+    private void append(State state, QueuedInput input) throws IOException {
+        write(journal, record(state, input));
+        journal.force(false);
+        recordsSinceCompaction++;
+    }
+
+    // wywoływane po zmianie stanu w pamięci - kompakcja zapisuje stan razem z właśnie dopisaną linią;
+    // błąd kompakcji tylko logowany (linia jest już w dzienniku), ponowiona przy następnym zapisie
+    private void compactIfDue() {
+        if (recordsSinceCompaction < compactAfterRecords) return;
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not compact ingest journal {} - appending to the current one", journalPath, e);
+        }
+    }
+
+    private void appendUnchecked(State state, QueuedInput input) {
+        try {
+            append(state, input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write ingest journal " + journalPath, e);
+        }
+    }
+
+    private static String record(State state, QueuedInput input) {
+        return state + "\t" + input.size() + "\t" + input.modifiedMillis() + "\t" + input.path() + "\n";
+    }
+
+    private static void write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
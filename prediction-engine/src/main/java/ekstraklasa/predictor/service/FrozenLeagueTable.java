@@ -0,0 +1,150 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.MatchResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Niezmienna "zamrożona" tabela bazowa: tabela policzona raz z zakończonych meczów sezonu
+ * plus opis fixtures, które będą symulowane.
+ *
+ * Drużyny mapowane są na gęste indeksy (w kolejności alfabetycznej kodów, co jednocześnie daje
+ * ostatnie kryterium sortowania). Walidacja i deduplikacja po matchId jak w
+ * TableCalculationsService.calculateLeagueStandings (zakończone mecze mają pierwszeństwo przed
+ * fixtures o tym samym matchId).
+ *
+ * Instancja jest bezpieczna do współdzielenia między wątkami - stan per symulacja trzyma LeagueTableKernel.
+ */
+public final class FrozenLeagueTable {
+
+    final String[] teamCodes;
+
+    // tabela bazowa (tylko zakończone mecze)
+    final int[] points;
+    final int[] goalsFor;
+    final int[] goalsAgainst;
+
+    // bezpośrednie mecze z zakończonych spotkań
+    final HeadToHeadMatrix headToHead;
+
+    // fixtures do symulacji; -1 gdy fixture jest pomijany
+    final int[] fixtureHome;
+    final int[] fixtureAway;
+
+    // maksymalna liczba punktów drużyny po wszystkich symulowanych fixtures
+    private final int[] maxPoints;
+
+    private FrozenLeagueTable(String[] teamCodes, int[] fixtureHome, int[] fixtureAway) {
+        this.teamCodes = teamCodes;
+        this.fixtureHome = fixtureHome;
+        this.fixtureAway = fixtureAway;
+
+        int n = teamCodes.length;
+        this.points = new int[n];
+        this.goalsFor = new int[n];
+        this.goalsAgainst = new int[n];
+        this.headToHead = new HeadToHeadMatrix(n);
+        this.maxPoints = new int[n];
+    }
+
+    private void applyResult(int home, int away, int hg, int ag) {
+        LeagueTableKernel.applyScore(points, goalsFor, goalsAgainst, home, away, hg, ag);
+        headToHead.add(home, away, hg, ag);
+    }
+
+    public static FrozenLeagueTable of(List<MatchResult> baseResults, List<MatchFixture> fixtures) {
+        List<MatchResult> validResults = new ArrayList<>();
+        Set<String> processedMatchIds = new HashSet<>();
+        Set<String> codes = new TreeSet<>();
+
+        if (baseResults != null) {
+            for (MatchResult r : baseResults) {
+                if (!isValidResult(r) || !markProcessed(processedMatchIds, r.getMatchId())) continue;
+                validResults.add(r);
+                codes.add(r.getHomeTeamCode());
+                codes.add(r.getAwayTeamCode());
+            }
+        }
+
+        int fixtureTotal = fixtures == null ? 0 : fixtures.size();
+        boolean[] validFixture = new boolean[fixtureTotal];
+        for (int i = 0; i < fixtureTotal; i++) {
+            MatchFixture f = fixtures.get(i);
+            if (f == null || f.getHomeTeamCode() == null || f.getAwayTeamCode() == null) continue;
+            if (!markProcessed(processedMatchIds, f.getMatchId())) continue;
+            validFixture[i] = true;
+            codes.add(f.getHomeTeamCode());
+            codes.add(f.getAwayTeamCode());
+        }
+
+        String[] teamCodes = codes.toArray(new String[0]);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < teamCodes.length; i++) index.put(teamCodes[i], i);
+
+        int[] fixtureHome = new int[fixtureTotal];
+        int[] fixtureAway = new int[fixtureTotal];
+        for (int i = 0; i < fixtureTotal; i++) {
+            if (!validFixture[i]) {
+                fixtureHome[i] = -1;
+                fixtureAway[i] = -1;
+                continue;
+            }
+            MatchFixture f = fixtures.get(i);
+            fixtureHome[i] = index.get(f.getHomeTeamCode());
+            fixtureAway[i] = index.get(f.getAwayTeamCode());
+        }
+
+        FrozenLeagueTable table = new FrozenLeagueTable(teamCodes, fixtureHome, fixtureAway);
+        for (MatchResult r : validResults) {
+            table.applyResult(index.get(r.getHomeTeamCode()), index.get(r.getAwayTeamCode()),
+                    r.getHomeGoals(), r.getAwayGoals());
+        }
+
+        System.arraycopy(table.points, 0, table.maxPoints, 0, teamCodes.length);
+        for (int i = 0; i < fixtureTotal; i++) {
+            if (fixtureHome[i] < 0) continue;
+            table.maxPoints[fixtureHome[i]] += 3;
+            table.maxPoints[fixtureAway[i]] += 3;
+        }
+        return table;
+    }
+
+    public int teamCount() {
+        return teamCodes.length;
+    }
+
+    public String teamCode(int team) {
+        return teamCodes[team];
+    }
+
+    public int maxPoints(int team) {
+        return maxPoints[team];
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static boolean markProcessed(Set<String> processedMatchIds, String matchId) {
+        if (matchId == null) return true;
+        return processedMatchIds.add(matchId);
+    }
+
+    private static boolean isValidResult(MatchResult matchResult) {
+        if (matchResult == null) {
+            return false;
+        }
+        if (!matchResult.isFinished()) {
+            return false;
+        }
+        if (matchResult.getHomeGoals() == null || matchResult.getAwayGoals() == null) {
+            return false;
+        }
+        return matchResult.getHomeTeamCode() != null && matchResult.getAwayTeamCode() != null;
+    }
+}
@@ -0,0 +1,74 @@
+package ekstraklasa.predictor.service;
+
+/**
+ * Macierz bezpośrednich meczów indeksowana indeksami drużyn: punkty zdobyte przez a w meczach z b
+ * oraz różnica bramek a w meczach z b. Aktualizowana inkrementalnie po każdym meczu, więc
+ * rozstrzyganie remisów (mini-liga grupy, ex aequo pary) nie wymaga ponownego skanowania wyników.
+ */
+public final class HeadToHeadMatrix {
+
+    private final int size;
+    private final int[] points;
+    private final int[] goalDifference;
+
+    public HeadToHeadMatrix(int size) {
+        this.size = size;
+        this.points = new int[size * size];
+        this.goalDifference = new int[size * size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int home, int away, int hg, int ag) {
+        int homeRow = home * size + away;
+        int awayRow = away * size + home;
+
+        goalDifference[homeRow] += hg - ag;
+        goalDifference[awayRow] += ag - hg;
+        if (hg > ag) {
+            points[homeRow] += 3;
+        } else if (hg < ag) {
+            points[awayRow] += 3;
+        } else {
+            points[homeRow] += 1;
+            points[awayRow] += 1;
+        }
+    }
+
+    /**
+     * Nadpisuje zawartość macierzą tego samego rozmiaru (bez alokacji).
+     */
+    public void copyFrom(HeadToHeadMatrix other) {
+        System.arraycopy(other.points, 0, points, 0, points.length);
+        System.arraycopy(other.goalDifference, 0, goalDifference, 0, goalDifference.length);
+    }
+
+    /**
+     * Kopia powiększona do newSize drużyn (indeksy istniejących drużyn bez zmian).
+     */
+    public HeadToHeadMatrix grownTo(int newSize) {
+        HeadToHeadMatrix grown = new HeadToHeadMatrix(newSize);
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(points, row * size, grown.points, row * newSize, size);
+            System.arraycopy(goalDifference, row * size, grown.goalDifference, row * newSize, size);
+        }
+        return grown;
+    }
+
+    public int points(int team, int opponent) {
+        return points[team * size + opponent];
+    }
+
+    public int goalDifference(int team, int opponent) {
+        return goalDifference[team * size + opponent];
+    }
+
+    /**
+     * Para jest nierozstrzygnięta w bezpośrednich meczach - równe punkty i zerowa różnica bramek.
+     */
+    public boolean pairTied(int a, int b) {
+        return points[a * size + b] == points[b * size + a] && goalDifference[a * size + b] == 0;
+    }
+}
@@ -0,0 +1,159 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.IngestDelta;
+import ekstraklasa.predictor.model.IngestDelta.Kind;
+import ekstraklasa.predictor.reader.MatchFingerprints.Fingerprints;
+import ekstraklasa.predictor.reader.MatchFingerprints.Row;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Odciski ostatnio przetworzonego pliku (hash całego pliku i MatchFingerprints) jako punkt odniesienia
+ * dla kolejnego: identyczny plik jest pomijany, a dla innego liczona jest różnica (IngestDelta).
+ *
+ * Punkt odniesienia zapisywany jest na dysk (consumable.dedup.fingerprints) dopiero po udanym przetworzeniu
+ * pliku - plik, którego przetwarzanie się nie powiodło, porównywany jest dalej z ostatnim udanym.
+ */
+@Slf4j
+@Component
+public class IngestDeltaService {
+
+    private static final int MAGIC = 0x454B4650; // "EKFP"
+    private static final int FORMAT_VERSION = 1;
+    private static final Row EMPTY_ROW = new Row(0, 0, 0);
+
+    // false - każdy plik przeliczany w całości (INITIAL)
+    @Value("${consumable.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${consumable.dedup.fingerprints:${user.dir}/resources/ingest-fingerprints.bin}")
+    private String fingerprintsPath;
+
+    private record Baseline(byte[] sourceHash, Fingerprints fingerprints) {
+    }
+
+    private Baseline baseline;
+    private boolean loaded;
+
+    /**
+     * true, gdy plik jest bajt w bajt taki sam jak ostatnio przetworzony.
+     */
+    public synchronized boolean isLastIngested(byte[] sourceHash) {
+        Baseline last = baseline();
+        return last != null && MessageDigest.isEqual(last.sourceHash(), sourceHash);
+    }
+
+    public synchronized IngestDelta diff(Fingerprints current) {
+        Baseline last = baseline();
+        if (last == null) return IngestDelta.of(Kind.INITIAL);
+
+        Map<String, Row> previousRows = last.fingerprints().rows();
+        Set<String> keys = new HashSet<>(previousRows.keySet());
+        keys.addAll(current.rows().keySet());
+
+        Set<String> changedResults = new TreeSet<>();
+        Set<String> changedFixtures = new TreeSet<>();
+        Set<String> changedStats = new TreeSet<>();
+        for (String key : keys) {
+            Row before = previousRows.getOrDefault(key, EMPTY_ROW);
+            Row after = current.rows().getOrDefault(key, EMPTY_ROW);
+            if (before.outcome() != after.outcome()) changedResults.add(key);
+            else if (before.stats() != after.stats()) changedStats.add(key);
+            if (before.fixture() != after.fixture()) changedFixtures.add(key);
+        }
+
+        Kind kind;
+        if (!changedResults.isEmpty() || !changedFixtures.isEmpty() || last.fingerprints().clubs() != current.clubs()) {
+            kind = Kind.RESULTS_CHANGED;
+        } else if (!changedStats.isEmpty() || last.fingerprints().resultOrder() != current.resultOrder()) {
+            kind = Kind.STATS_ONLY;
+        } else {
+            kind = Kind.UNCHANGED;
+        }
+        return new IngestDelta(kind, changedResults, changedFixtures, changedStats);
+    }
+
+    /**
+     * Zapamiętuje przetworzony plik jako punkt odniesienia (zapis przez plik tymczasowy i atomowe podmienienie).
+     */
+    public synchronized void commit(byte[] sourceHash, Fingerprints fingerprints) throws IOException {
+        baseline = new Baseline(sourceHash, fingerprints);
+        loaded = true;
+        if (!enabled) return;
+
+        Path path = Path.of(fingerprintsPath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(sourceHash.length);
+                out.write(sourceHash);
+                out.writeLong(fingerprints.resultOrder());
+                out.writeLong(fingerprints.clubs());
+                out.writeInt(fingerprints.rows().size());
+                for (Map.Entry<String, Row> entry : fingerprints.rows().entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().outcome());
+                    out.writeLong(entry.getValue().stats());
+                    out.writeLong(entry.getValue().fixture());
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private Baseline baseline() {
+        if (!enabled) return null;
+        if (!loaded) {
+            baseline = load(Path.of(fingerprintsPath));
+            loaded = true;
+        }
+        return baseline;
+    }
+
+    private static Baseline load(Path path) {
+        if (!Files.isRegularFile(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.info("Ingest fingerprints {} have a different format - next file is processed in full", path);
+                return null;
+            }
+            byte[] sourceHash = in.readNBytes(in.readInt());
+            long resultOrder = in.readLong();
+            long clubs = in.readLong();
+            int count = in.readInt();
+            Map<String, Row> rows = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                rows.put(in.readUTF(), new Row(in.readLong(), in.readLong(), in.readLong()));
+            }
+            log.info("Loaded fingerprints of the last ingested file ({} matches) from {}", count, path);
+            return new Baseline(sourceHash, new Fingerprints(rows, resultOrder, clubs));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable ingest fingerprints {} - next file is processed in full", path, e);
+            return null;
+        }
+    }
+}
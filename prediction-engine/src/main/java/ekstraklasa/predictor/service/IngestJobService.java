@@ -0,0 +1,172 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.IngestJob;
+import ekstraklasa.predictor.model.IngestJobState;
+import ekstraklasa.predictor.service.ConsumableIngestQueue.Entry;
+import ekstraklasa.predictor.service.ConsumableIngestQueue.QueuedInput;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchroniczne przetwarzanie plików z folderu consumable.
+ *
+ * Jeden wątek wirtualny pobiera kolejne wejścia z ConsumableIngestQueue i wykonuje dla nich
+ * ConsumableFolderWatcherService.consumeFile - pliki przetwarzane są po kolei, w kolejności dodania.
+ * Zadania tworzy kolejka razem z wejściem; submit() przegląda folder i zwraca zadanie, które zostanie
+ * wykonane najwcześniej (także dla pliku, który jeszcze się zapisuje) - powtórne zgłoszenia zwracają to samo zadanie.
+ *
+ * streamProgress() wysyła status zadania jako server-sent events co progress-interval-ms,
+ * aż zadanie się zakończy - każdy strumień to jeden wątek wirtualny usypiany między zdarzeniami.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestJobService {
+
+    // ile zakończonych zadań trzymamy dla endpointu statusu
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final ConsumableFolderWatcherService consumableFolderWatcherService;
+    private final ConsumableIngestQueue consumableIngestQueue;
+
+    @Value("${consumable.jobs.progress-interval-ms:1000}")
+    private long progressIntervalMs;
+
+    // odstęp między próbami, gdy kolejka nie może zapisać dziennika
+    @Value("${consumable.queue.retry-ms:5000}")
+    private long queueRetryMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorker() {
+        executor.execute(this::drainQueue);
+    }
+
+    public IngestJob submit() {
+        consumableFolderWatcherService.consume();
+        IngestJob job = consumableIngestQueue.nextJob().orElseGet(() -> {
+            IngestJob none = new IngestJob(null);
+            none.finished(IngestJobState.NO_INPUT, null);
+            return none;
+        });
+        register(job);
+        return job;
+    }
+
+    public Optional<IngestJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public SseEmitter streamProgress(IngestJob job) {
+        // bez timeoutu - strumień kończy się razem z zadaniem albo po rozłączeniu klienta
+        SseEmitter emitter = new SseEmitter(0L);
+        executor.execute(() -> {
+            try {
+                while (!job.getState().isFinished()) {
+                    emitter.send(SseEmitter.event().name("progress").data(job.toStatus()));
+                    Thread.sleep(progressIntervalMs);
+                }
+                emitter.send(SseEmitter.event().name("finished").data(job.toStatus()));
+                emitter.complete();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } catch (Exception e) {
+                // klient się rozłączył
+                log.debug("Progress stream for job {} closed: {}", job.getId(), e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    /**
+     * Jedyny wątek przetwarzający kolejkę - błąd pojedynczego wejścia (także zapisu dziennika)
+     * kończy tylko jego zadanie, pętla działa dalej.
+     */
+    private void drainQueue() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry;
+                try {
+                    entry = consumableIngestQueue.take();
+                } catch (RuntimeException e) {
+                    log.error("Could not take the next input from the ingest queue, retrying in {} ms", queueRetryMs, e);
+                    Thread.sleep(queueRetryMs);
+                    continue;
+                }
+
+                IngestJob job = entry.job();
+                register(job);
+                try {
+                    run(job, entry.input());
+                } catch (RuntimeException e) {
+                    log.error("Job {} failed outside of its stages", job.getId(), e);
+                    job.finished(IngestJobState.FAILED, e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(IngestJob job, QueuedInput input) {
+        job.started();
+        try {
+            consumableFolderWatcherService.consumeFile(input.path(), job);
+            // DONE przed usunięciem pliku - po restarcie pozostały plik jest tylko usuwany
+            consumableIngestQueue.complete(input);
+        } catch (Exception e) {
+            log.error("Job {} failed", job.getId(), e);
+            try {
+                consumableIngestQueue.fail(input);
+            } catch (RuntimeException journalError) {
+                log.error("Could not record failure of {} in the ingest journal", input.path(), journalError);
+            }
+            job.finished(IngestJobState.FAILED, e.getMessage());
+            return;
+        }
+
+        try {
+            consumableFolderWatcherService.deleteConsumed(input.path(), job);
+        } catch (IOException e) {
+            log.warn("Job {} could not delete {} - it will be removed on the next scan", job.getId(), input.path(), e);
+        }
+        job.finished(IngestJobState.SUCCEEDED, null);
+        log.info("Job {} finished: {}", job.getId(), job.toStatus().stageTimingsMs());
+    }
+
+    private void register(IngestJob job) {
+        jobs.put(job.getId(), job);
+        if (jobs.size() > MAX_FINISHED_JOBS) {
+            jobs.values().stream()
+                    .filter(j -> j.getState().isFinished())
+                    .sorted(Comparator.comparing(IngestJob::getSubmittedAt))
+                    .limit(jobs.size() - MAX_FINISHED_JOBS)
+                    .forEach(j -> jobs.remove(j.getId()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,70 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.LeagueStandingsEntry;
+import ekstraklasa.predictor.model.MatchResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inkrementalna tabela ligowa z kolejnych wyników (np. z CSVFileReader.stream) - wynik taki sam
+ * jak TableCalculationsService.calculateLeagueStandings na pełnej liście.
+ *
+ * Zamiast listy unikalnych wyników trzyma tylko wiersze tabeli, macierz bezpośrednich meczów
+ * (powiększaną przy nowej drużynie) i identyfikatory przetworzonych meczów (do pomijania duplikatów).
+ */
+public final class LeagueTableAccumulator {
+
+    private static final int INITIAL_TEAMS = 32;
+
+    private final Map<String, LeagueStandingsEntry> standingsMap = new HashMap<>();
+    private final Set<String> processedMatchIds = new HashSet<>();
+    private final Map<String, Integer> teamIndex = new HashMap<>();
+    private HeadToHeadMatrix headToHead = new HeadToHeadMatrix(INITIAL_TEAMS);
+
+    public void accept(MatchResult matchResult) {
+        if (!TableCalculationsService.isValidResult(matchResult)) return;
+
+        String matchId = matchResult.getMatchId();
+        // pomijamy duplikaty tego samego meczu
+        if (matchId != null && !processedMatchIds.add(matchId)) return;
+
+        String homeTeamCode = matchResult.getHomeTeamCode();
+        String awayTeamCode = matchResult.getAwayTeamCode();
+        LeagueStandingsEntry homeEntry = TableCalculationsService.getOrCreateStandingsEntry(standingsMap, homeTeamCode);
+        LeagueStandingsEntry awayEntry = TableCalculationsService.getOrCreateStandingsEntry(standingsMap, awayTeamCode);
+        TableCalculationsService.updateEntriesForMatch(homeEntry, awayEntry, matchResult.getHomeGoals(), matchResult.getAwayGoals());
+
+        // indeksy przed odczytem pola - indexOf może podmienić headToHead na powiększoną macierz
+        int home = indexOf(homeTeamCode);
+        int away = indexOf(awayTeamCode);
+        headToHead.add(home, away, matchResult.getHomeGoals(), matchResult.getAwayGoals());
+    }
+
+    /**
+     * Posortowana tabela z pozycjami. Wiersze są współdzielone z akumulatorem - kolejne accept je aktualizują.
+     */
+    public List<LeagueStandingsEntry> standings() {
+        List<LeagueStandingsEntry> sortedStandings = new ArrayList<>(standingsMap.values());
+        TableCalculationsService.sortAndAssignPositions(sortedStandings, teamIndex, headToHead);
+        return sortedStandings;
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private int indexOf(String teamCode) {
+        Integer index = teamIndex.get(teamCode);
+        if (index != null) return index;
+
+        index = teamIndex.size();
+        teamIndex.put(teamCode, index);
+        if (index >= headToHead.size()) {
+            headToHead = headToHead.grownTo(headToHead.size() * 2);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,184 @@
+package ekstraklasa.predictor.service;
+
+/**
+ * Prymitywny, inkrementalny odpowiednik TableCalculationsService dla pętli Monte Carlo.
+ *
+ * Startuje z tabeli bazowej (FrozenLeagueTable - policzonej raz z zakończonych meczów), a w każdej
+ * symulacji nakłada wyłącznie wyniki symulowanych fixtures jako delty. Koszt jednej iteracji zależy
+ * od liczby pozostałych fixtures, a nie od liczby wszystkich meczów sezonu. Bufory alokowane są raz
+ * przy tworzeniu - reset, applyFixture i computePositions nie alokują pamięci. Head-to-head czytane
+ * jest wyłącznie z HeadToHeadMatrix, aktualizowanej razem z tabelą.
+ *
+ * Kryteria sortowania i ex aequo są identyczne jak w TableCalculationsService.
+ * Instancja nie jest thread-safe - każdy worker powinien mieć własną.
+ */
+public class LeagueTableKernel {
+
+    private final FrozenLeagueTable base;
+
+    // bufory robocze
+    private final int[] points;
+    private final int[] goalsFor;
+    private final int[] goalsAgainst;
+    private final HeadToHeadMatrix headToHead;
+    private final int[] order;
+    private final int[] h2hPoints;
+    private final int[] h2hGoalDifference;
+
+    public LeagueTableKernel(FrozenLeagueTable base) {
+        this.base = base;
+
+        int n = base.teamCount();
+        this.points = new int[n];
+        this.goalsFor = new int[n];
+        this.goalsAgainst = new int[n];
+        this.headToHead = new HeadToHeadMatrix(n);
+        this.order = new int[n];
+        this.h2hPoints = new int[n];
+        this.h2hGoalDifference = new int[n];
+
+        reset();
+    }
+
+    public FrozenLeagueTable base() {
+        return base;
+    }
+
+    /**
+     * Przywraca tabelę bazową - wywoływane na początku każdej symulacji.
+     */
+    public void reset() {
+        int n = base.teamCount();
+        System.arraycopy(base.points, 0, points, 0, n);
+        System.arraycopy(base.goalsFor, 0, goalsFor, 0, n);
+        System.arraycopy(base.goalsAgainst, 0, goalsAgainst, 0, n);
+        headToHead.copyFrom(base.headToHead);
+    }
+
+    /**
+     * Nakłada wynik symulowanego fixture (indeks z listy przekazanej do FrozenLeagueTable.of()).
+     */
+    public void applyFixture(int fixture, int home, int away) {
+        int homeTeam = base.fixtureHome[fixture];
+        if (homeTeam < 0) return;
+        int awayTeam = base.fixtureAway[fixture];
+        applyScore(points, goalsFor, goalsAgainst, homeTeam, awayTeam, home, away);
+        headToHead.add(homeTeam, awayTeam, home, away);
+    }
+
+    public int points(int team) {
+        return points[team];
+    }
+
+    /**
+     * Sortuje bieżącą tabelę i zapisuje pozycję (1..n) każdej drużyny do positions[indeks drużyny].
+     */
+    public void computePositions(int[] positions) {
+        int n = base.teamCount();
+        for (int i = 0; i < n; i++) order[i] = i;
+        sortByPoints(n);
+
+        // w obrębie grup z równą liczbą punktów - mini-liga head-to-head
+        int start = 0;
+        while (start < n) {
+            int end = start + 1;
+            while (end < n && points[order[end]] == points[order[start]]) end++;
+            if (end - start > 1) {
+                computeGroupHeadToHead(start, end);
+                sortGroup(start, end);
+            }
+            start = end;
+        }
+
+        for (int i = 0; i < n; i++) {
+            int team = order[i];
+            if (i > 0 && areTied(team, order[i - 1])) {
+                positions[team] = positions[order[i - 1]];
+            } else {
+                positions[team] = i + 1;
+            }
+        }
+    }
+
+    static void applyScore(int[] points, int[] goalsFor, int[] goalsAgainst, int home, int away, int hg, int ag) {
+        goalsFor[home] += hg;
+        goalsAgainst[home] += ag;
+        goalsFor[away] += ag;
+        goalsAgainst[away] += hg;
+
+        if (hg > ag) {
+            points[home] += 3;
+        } else if (hg < ag) {
+            points[away] += 3;
+        } else {
+            points[home] += 1;
+            points[away] += 1;
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private void sortByPoints(int n) {
+        for (int i = 1; i < n; i++) {
+            int team = order[i];
+            int j = i - 1;
+            while (j >= 0 && points[order[j]] < points[team]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = team;
+        }
+    }
+
+    private void computeGroupHeadToHead(int start, int end) {
+        // mini-liga grupy: suma wpisów macierzy po wszystkich rywalach z tej samej grupy
+        for (int i = start; i < end; i++) {
+            int team = order[i];
+            int groupPoints = 0;
+            int groupGoalDifference = 0;
+            for (int k = start; k < end; k++) {
+                int opponent = order[k];
+                if (opponent == team) continue;
+                groupPoints += headToHead.points(team, opponent);
+                groupGoalDifference += headToHead.goalDifference(team, opponent);
+            }
+            h2hPoints[team] = groupPoints;
+            h2hGoalDifference[team] = groupGoalDifference;
+        }
+    }
+
+    private void sortGroup(int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            int team = order[i];
+            int j = i - 1;
+            while (j >= start && compareInGroup(order[j], team) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = team;
+        }
+    }
+
+    private int compareInGroup(int a, int b) {
+        // 1) punkty w bezpośrednich meczach
+        int cmp = Integer.compare(h2hPoints[b], h2hPoints[a]);
+        if (cmp != 0) return cmp;
+        // 2) różnica bramek w bezpośrednich meczach
+        cmp = Integer.compare(h2hGoalDifference[b], h2hGoalDifference[a]);
+        if (cmp != 0) return cmp;
+        // 3) ogólna różnica bramek
+        cmp = Integer.compare(goalsFor[b] - goalsAgainst[b], goalsFor[a] - goalsAgainst[a]);
+        if (cmp != 0) return cmp;
+        // dalsze kryteria deterministyczne: gole zdobyte, potem kod (indeksy są w kolejności kodów)
+        cmp = Integer.compare(goalsFor[b], goalsFor[a]);
+        if (cmp != 0) return cmp;
+        return Integer.compare(a, b);
+    }
+
+    private boolean areTied(int a, int b) {
+        if (points[a] != points[b]) return false;
+        if (goalsFor[a] - goalsAgainst[a] != goalsFor[b] - goalsAgainst[b]) return false;
+        // mini-liga tylko tej pary
+        return headToHead.pairTied(a, b);
+    }
+}
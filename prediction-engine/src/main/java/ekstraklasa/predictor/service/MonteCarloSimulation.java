@@ -5,89 +5,247 @@ import ekstraklasa.predictor.reader.CSVFileReader;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
 
 /**
- * Prosty Monte Carlo: dla podanej liczby symulacji generuje wyniki dla wszystkich fixtures
- * na podstawie przewidywań i agreguje procentowe prawdopodobieństwo zajęcia danej pozycji przez drużyny.
+ * Prosty Monte Carlo: dla podanej liczby symulacji losuje wyniki wszystkich fixtures
+ * z rozkładów ScoreProbabilityTable i agreguje procentowe prawdopodobieństwo zajęcia danej pozycji przez drużyny.
+ *
+ * Symulacje dzielone są na bloki wykonywane przez workery; każdy blok ma własny strumień losowy
+ * wyprowadzony z ziarna (seed), a każdy worker własny SimulationResult, które na końcu są scalane.
+ * Dla tego samego ziarna i wejścia liczniki są identyczne niezależnie od liczby wątków.
+ *
+ * Workery wszystkich uruchomień (ingest, scenariusze) działają we wspólnej puli WORKERS o rozmiarze liczby
+ * rdzeni - parallelism ogranicza tylko liczbę workerów jednego uruchomienia, a równoległe uruchomienia
+ * nie mnożą wątków platformowych.
+ *
+ * Postęp (SimulationProgress) aktualizowany jest bez blokad po każdej symulacji i może być
+ * odczytywany z innych wątków w trakcie działania.
+ *
+ * Tryb adaptacyjny (runAdaptive) uruchamia symulacje partiami i kończy, gdy błąd standardowy
+ * predykcji top4 i spadku każdej drużyny mieści się w tolerancji albo skończy się budżet czasu
+ * (zatrzymanie przez budżet czasu zależy od szybkości maszyny, więc nie jest powtarzalne).
  */
 public class MonteCarloSimulation {
 
-    private static final int DEFAULT_SIMULATIONS = 20000;
-    private static final Random rand = new Random();
+    // liczba symulacji w bloku z jednym strumieniem losowym - jednostka podziału pracy
+    private static final int SIMULATION_BLOCK_SIZE = 500;
 
+    public static final int TOP_POSITIONS = 4;
+    public static final int RELEGATION_SLOTS = 2; // domyślna liczba miejsc spadkowych
+
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("monte-carlo-worker-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false
+    );
 
     public static SimulationResult run(CSVFileReader.ReadResult read, int simulations) throws Exception {
-        List<MatchFixture> fixtures = read.fixtures;
-        List<MatchResult> baseResults = read.results;
-        List<FootballClub> clubs = read.clubs;
+        return run(read, simulations, Runtime.getRuntime().availableProcessors(), newSeed(), new SimulationProgress());
+    }
 
-        if (fixtures == null || fixtures.isEmpty()) {
-            throw new IllegalStateException("No fixtures to simulate");
+    public static SimulationResult run(CSVFileReader.ReadResult read,
+                                       int simulations,
+                                       int parallelism,
+                                       long seed,
+                                       SimulationProgress progress) throws Exception {
+        return run(SimulationInput.of(read), simulations, parallelism, seed, progress);
+    }
+
+    public static SimulationResult run(SimulationInput prepared,
+                                       int simulations,
+                                       int parallelism,
+                                       long seed,
+                                       SimulationProgress progress) throws Exception {
+        SimulationResult simulationResult = prepared.emptyResult();
+
+        int workers = Math.max(1, Math.min(parallelism, simulations));
+        progress.start(simulations);
+        try {
+            simulate(workers, prepared, simulations, new SplittableRandom(seed), progress, simulationResult);
+        } finally {
+            progress.finish();
         }
 
-        // calculate strengths once
-        var strength = TeamStrengthCalculationService.calculateAllTeamsStrength(clubs, baseResults);
+        return simulationResult;
+    }
+
+    public static SimulationResult runAdaptive(SimulationInput prepared,
+                                               AdaptiveSimulationSettings settings,
+                                               int parallelism,
+                                               long seed,
+                                               SimulationProgress progress) throws Exception {
+        SimulationResult simulationResult = prepared.emptyResult();
+
+        int batchSize = Math.max(1, settings.batchSize());
+        int maxSimulations = Math.max(batchSize, settings.maxSimulations());
+        long deadline = System.nanoTime() + settings.timeBudget().toNanos();
+
+        int workers = Math.max(1, Math.min(parallelism, batchSize));
+        SplittableRandom rootRandom = new SplittableRandom(seed);
 
-        SimulationResult simulationResult = new SimulationResult(clubs.size());
+        progress.start(maxSimulations);
+        try {
+            while (simulationResult.getSimulations() < maxSimulations) {
+                int batch = Math.min(batchSize, maxSimulations - simulationResult.getSimulations());
+                simulate(workers, prepared, batch, rootRandom, progress, simulationResult);
 
-        // ensure all teams are present
-        for (FootballClub club : clubs) {
-            simulationResult.ensureTeam(club.getCode());
+                if (maxStandardError(simulationResult) <= settings.tolerance()) break;
+                if (System.nanoTime() >= deadline) break;
+            }
+        } finally {
+            progress.finish();
         }
 
-        for (int s = 0; s < simulations; s++) {
-            System.out.print("\rSimulating... " + (s + 1) + "/" + simulations);
-
-            // build simulation results list: copy base finished results
-            List<MatchResult> allResults = new ArrayList<>(baseResults);
-
-            // simulate all fixtures
-            for (MatchFixture fixture : fixtures) {
-                MatchProbability p = TeamFixturePredictor.predictFixtureFromClubMap(strength, fixture, null);
-                Winner winner = OutcomeSampler.sample(p);
-
-                MatchResult mr = new MatchResult();
-                mr.setMatchId(fixture.getMatchId());
-                mr.setFinished(true);
-                mr.setHomeTeamCode(fixture.getHomeTeamCode());
-                mr.setAwayTeamCode(fixture.getAwayTeamCode());
-
-                // generate plausible score
-                int homeGoals = 0;
-                int awayGoals = 0;
-                switch (winner) {
-                    case HOME_WIN:
-                        homeGoals = rand.nextInt(3) + 1; // 1..3
-                        awayGoals = rand.nextInt(homeGoals); // 0..homeGoals-1
-                        break;
-                    case AWAY_WIN:
-                        awayGoals = rand.nextInt(3) + 1; // 1..3
-                        homeGoals = rand.nextInt(awayGoals); // 0..awayGoals-1
-                        break;
-                    default: // DRAW
-                        homeGoals = rand.nextInt(3); // 0..2
-                        awayGoals = homeGoals;
-                }
-                mr.setHomeGoals(homeGoals);
-                mr.setAwayGoals(awayGoals);
-                mr.setWinner(Winner.fromScore(homeGoals, awayGoals));
+        return simulationResult;
+    }
+
+    /**
+     * Losowe ziarno dla uruchomień, w których nie podano go jawnie - zapisywane razem z wynikiem,
+     * żeby dało się odtworzyć przebieg.
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Największy błąd standardowy (pkt procentowe, Agresti-Coull) spośród predykcji top4 i spadku wszystkich
+     * drużyn - predykcje 0% i 100% też mają niezerowy błąd, więc nie kończą trybu adaptacyjnego po pierwszej partii.
+     */
+    public static double maxStandardError(SimulationResult result) {
+        int leagueSize = result.getLeagueSize();
+        int relegationFrom = Math.max(1, leagueSize - RELEGATION_SLOTS + 1);
+        double max = 0.0;
+        for (String code : result.getPositionCounts().keySet()) {
+            max = Math.max(max, result.getRangeStandardError(code, 1, TOP_POSITIONS));
+            max = Math.max(max, result.getRangeStandardError(code, relegationFrom, leagueSize));
+        }
+        return max;
+    }
 
-                allResults.add(mr);
+    /**
+     * Uruchamia count symulacji i dolicza je do target.
+     *
+     * Symulacje dzielone są na bloki po SIMULATION_BLOCK_SIZE, a każdy blok dostaje własny strumień
+     * losowy wyprowadzony z rootRandom w kolejności bloków. Workery pobierają kolejne bloki, ale
+     * ponieważ strumień należy do bloku, a nie do workera, suma liczników nie zależy od liczby wątków.
+     * Przy błędzie albo przerwaniu wywołującego pozostałe bloki nie są już pobierane (pula jest wspólna,
+     * więc nie można jej zamknąć).
+     */
+    private static void simulate(int workers,
+                                 SimulationInput prepared,
+                                 int count,
+                                 SplittableRandom rootRandom,
+                                 SimulationProgress progress,
+                                 SimulationResult target) throws Exception {
+        int blocks = (count + SIMULATION_BLOCK_SIZE - 1) / SIMULATION_BLOCK_SIZE;
+        SplittableRandom[] blockRandoms = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) {
+            blockRandoms[b] = rootRandom.split();
+        }
+
+        AtomicInteger nextBlock = new AtomicInteger();
+        int batchWorkers = Math.max(1, Math.min(workers, blocks));
+        List<Future<SimulationResult>> partials = new ArrayList<>(batchWorkers);
+        boolean completed = false;
+        try {
+            for (int w = 0; w < batchWorkers; w++) {
+                partials.add(WORKERS.submit(() -> {
+                    Worker worker = new Worker(prepared);
+                    int b;
+                    while ((b = nextBlock.getAndIncrement()) < blocks) {
+                        int blockCount = Math.min(SIMULATION_BLOCK_SIZE, count - b * SIMULATION_BLOCK_SIZE);
+                        worker.simulate(blockCount, blockRandoms[b], progress);
+                    }
+                    return worker.toResult();
+                }));
             }
 
-            // calculate table
-            var standings = TableCalculationsService.calculateLeagueStandings(allResults);
+            for (Future<SimulationResult> partial : partials) {
+                target.merge(partial.get());
+            }
+            completed = true;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            if (!completed) {
+                nextBlock.set(blocks);
+                partials.forEach(partial -> partial.cancel(true));
+            }
+        }
+    }
 
-            // increment positions
-            for (var entry : standings) {
-                String code = entry.getFootballClub() == null ? null : entry.getFootballClub().getCode();
-                if (code == null) continue;
-                simulationResult.increment(code, entry.getPosition());
+    /**
+     * Stan jednego workera: własny kernel tabeli i liczniki pozycji (indeks drużyny -> pozycja).
+     */
+    private static final class Worker {
+        private final SimulationInput prepared;
+        private final LeagueTableKernel kernel;
+        private final int[] positions;
+        private final int[][] positionCounts;
+        private final int[][] pointsCounts;
+        private int simulations = 0;
+
+        Worker(SimulationInput prepared) {
+            FrozenLeagueTable baseTable = prepared.baseTable();
+            this.prepared = prepared;
+            this.kernel = new LeagueTableKernel(baseTable);
+            this.positions = new int[baseTable.teamCount()];
+            this.positionCounts = new int[baseTable.teamCount()][prepared.leagueSize()];
+            this.pointsCounts = new int[baseTable.teamCount()][];
+            for (int team = 0; team < baseTable.teamCount(); team++) {
+                pointsCounts[team] = new int[baseTable.maxPoints(team) + 1];
             }
         }
 
-        simulationResult.setSimulations(simulations);
-        return simulationResult;
+        void simulate(int count, RandomGenerator rand, SimulationProgress progress) {
+            int leagueSize = prepared.leagueSize();
+            ScoreProbabilityTable scores = prepared.scores();
+
+            for (int s = 0; s < count; s++) {
+                kernel.reset();
+
+                // simulate all fixtures - score (and so the outcome) drawn in one lookup
+                for (int f = 0; f < scores.size(); f++) {
+                    int score = scores.sample(f, rand);
+                    kernel.applyFixture(f, ScoreProbabilityTable.homeGoals(score), ScoreProbabilityTable.awayGoals(score));
+                }
+
+                // calculate table
+                kernel.computePositions(positions);
+
+                // increment positions and final points
+                for (int team = 0; team < positions.length; team++) {
+                    pointsCounts[team][kernel.points(team)]++;
+                    int position = positions[team];
+                    if (position < 1 || position > leagueSize) continue;
+                    positionCounts[team][position - 1]++;
+                }
+                progress.increment();
+            }
+            simulations += count;
+        }
+
+        SimulationResult toResult() {
+            FrozenLeagueTable baseTable = prepared.baseTable();
+            SimulationResult partial = new SimulationResult(prepared.leagueSize());
+            for (int team = 0; team < positionCounts.length; team++) {
+                partial.addCounts(baseTable.teamCode(team), positionCounts[team]);
+                partial.addPointsCounts(baseTable.teamCode(team), pointsCounts[team]);
+            }
+            partial.setSimulations(simulations);
+            return partial;
+        }
     }
 }
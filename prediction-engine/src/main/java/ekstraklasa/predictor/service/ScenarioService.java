@@ -0,0 +1,244 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.cache.ScenarioResultCache;
+import ekstraklasa.predictor.model.ForcedFixtureModel;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.ScenarioRequest;
+import ekstraklasa.predictor.model.ScenarioResponse;
+import ekstraklasa.predictor.model.ScenarioTeamModel;
+import ekstraklasa.predictor.model.SimulationProgress;
+import ekstraklasa.predictor.model.SimulationResult;
+import ekstraklasa.predictor.model.Winner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scenariusze what-if: symulacja Monte Carlo na ostatnim stanie sezonu (SeasonStateService)
+ * z wymuszonymi rozstrzygnięciami lub wynikami wybranych fixtures.
+ *
+ * Wczytany plik, siły drużyn i tabela bazowa są współdzielone - scenariusz podmienia tylko rozkłady
+ * wyników wymuszonych fixtures. Nic nie jest zapisywane do bazy.
+ * Niepoprawne wymuszenia (nieznany lub rozegrany fixture, sprzeczne dane) -> IllegalArgumentException.
+ *
+ * Wyniki trzymane są w ScenarioResultCache pod kanonicznym hashem (snapshot, wymuszenia po indeksie
+ * fixture, liczba symulacji, ziarno). Bez podanego ziarna jest ono wyprowadzane z hasha scenariusza,
+ * więc to samo pytanie zawsze daje ten sam (i cache'owany) wynik. Scenariusze liczone są na osobnej,
+ * ograniczonej puli wątków z kolejką - nadmiar zgłoszeń jest odrzucany (RejectedExecutionException),
+ * żeby seria zapytań nie zabrała rdzeni przetwarzaniu plików.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScenarioService {
+
+    private final SeasonStateService seasonStateService;
+    private final ScenarioResultCache scenarioResultCache;
+
+    @Value("${consumable.scenario.simulations:10000}")
+    private int defaultSimulations;
+
+    // workery Monte Carlo na jeden scenariusz; wszystkie uruchomienia dzielą pulę MonteCarloSimulation (liczba rdzeni)
+    @Value("${consumable.scenario.parallelism:1}")
+    private int scenarioParallelism;
+
+    // 0 -> połowa dostępnych rdzeni (min. 1)
+    @Value("${consumable.scenario.executor.threads:0}")
+    private int executorThreads;
+
+    @Value("${consumable.scenario.executor.queue-capacity:16}")
+    private int executorQueueCapacity;
+
+    @Value("${consumable.scenario.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = executorThreads > 0 ? executorThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(executorQueueCapacity),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException gdy pula scenariuszy i jej kolejka są pełne
+     * @throws java.util.concurrent.TimeoutException gdy wynik nie jest gotowy w consumable.scenario.timeout-ms
+     */
+    public ScenarioResponse simulate(ScenarioRequest request) throws Exception {
+        SeasonStateService.SeasonState state = seasonStateService.current();
+        SimulationInput input = state.input();
+
+        Map<Integer, Forcing> forcings = resolveForcings(input, request.getForcedFixtures());
+        int simulations = request.getSimulations() != null ? request.getSimulations() : defaultSimulations;
+
+        // kanoniczna postać: snapshot, wymuszenia posortowane po indeksie fixture, liczba symulacji
+        StringBuilder canonical = new StringBuilder()
+                .append("snapshot=").append(state.timestamp())
+                .append("|simulations=").append(simulations);
+        forcings.forEach((fixture, forcing) -> canonical.append("|f").append(fixture).append('=').append(forcing.canonical()));
+
+        long seed = request.getSeed() != null ? request.getSeed() : ByteBuffer.wrap(sha256(canonical.toString())).getLong();
+        String key = HexFormat.of().formatHex(sha256(canonical + "|seed=" + seed));
+
+        try {
+            return scenarioResultCache
+                    .getOrCompute(state.timestamp(), key, () -> run(state, forcings, simulations, seed), executor)
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private ScenarioResponse run(SeasonStateService.SeasonState state,
+                                 Map<Integer, Forcing> forcings,
+                                 int simulations,
+                                 long seed) throws Exception {
+        SimulationInput input = state.input();
+        Map<Integer, double[]> distributions = new LinkedHashMap<>();
+        forcings.forEach((fixture, forcing) -> distributions.put(fixture, forcing.distribution(input, fixture)));
+        SimulationInput scenarioInput = distributions.isEmpty()
+                ? input
+                : input.withScores(input.scores().withDistributions(distributions));
+
+        long start = System.nanoTime();
+        SimulationResult result = MonteCarloSimulation.run(scenarioInput, simulations, scenarioParallelism, seed, new SimulationProgress());
+        log.info("Scenario with {} forced fixtures: {} simulations in {} ms",
+                forcings.size(), simulations, (System.nanoTime() - start) / 1_000_000);
+
+        return new ScenarioResponse()
+                .snapshotTimestamp(state.timestamp().atOffset(ZoneOffset.UTC))
+                .simulations(result.getSimulations())
+                .seed(seed)
+                .teams(toTeams(result));
+    }
+
+    /**
+     * Wymuszenie jednego fixture: dokładny wynik (homeGoals/awayGoals) albo samo rozstrzygnięcie.
+     */
+    private record Forcing(Winner outcome, Integer homeGoals, Integer awayGoals) {
+
+        String canonical() {
+            return homeGoals != null ? homeGoals + ":" + awayGoals : outcome.name();
+        }
+
+        double[] distribution(SimulationInput input, int fixture) {
+            return homeGoals != null
+                    ? ScoreProbabilityTable.exactScore(homeGoals, awayGoals)
+                    : ScoreProbabilityTable.conditionOnOutcome(input.scores().distribution(fixture), outcome);
+        }
+    }
+
+    private static Map<Integer, Forcing> resolveForcings(SimulationInput input, List<ForcedFixtureModel> forcedFixtures) {
+        Map<Integer, Forcing> forcings = new TreeMap<>();
+        if (forcedFixtures == null) return forcings;
+
+        for (ForcedFixtureModel forced : forcedFixtures) {
+            int fixture = findFixture(input, forced);
+            if (input.baseTable().fixtureHome[fixture] < 0) {
+                throw new IllegalArgumentException("Fixture " + describe(forced) + " is already played");
+            }
+            if (forcings.containsKey(fixture)) {
+                throw new IllegalArgumentException("Fixture " + describe(forced) + " is forced more than once");
+            }
+            forcings.put(fixture, toForcing(forced));
+        }
+        return forcings;
+    }
+
+    private static int findFixture(SimulationInput input, ForcedFixtureModel forced) {
+        List<MatchFixture> fixtures = input.read().fixtures;
+        for (int f = 0; f < fixtures.size(); f++) {
+            MatchFixture fixture = fixtures.get(f);
+            if (fixture == null) continue;
+            if (forced.getMatchId() != null) {
+                if (forced.getMatchId().equals(fixture.getMatchId())) return f;
+            } else if (Objects.equals(forced.getHomeTeamCode(), fixture.getHomeTeamCode())
+                    && Objects.equals(forced.getAwayTeamCode(), fixture.getAwayTeamCode())) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Unknown fixture " + describe(forced));
+    }
+
+    private static Forcing toForcing(ForcedFixtureModel forced) {
+        Integer homeGoals = forced.getHomeGoals();
+        Integer awayGoals = forced.getAwayGoals();
+        Winner outcome = forced.getOutcome() == null ? null : Winner.valueOf(forced.getOutcome().getValue());
+
+        if (homeGoals != null || awayGoals != null) {
+            if (homeGoals == null || awayGoals == null) {
+                throw new IllegalArgumentException("Fixture " + describe(forced) + ": both homeGoals and awayGoals are required");
+            }
+            if (homeGoals < 0 || homeGoals > ScoreProbabilityTable.MAX_GOALS
+                    || awayGoals < 0 || awayGoals > ScoreProbabilityTable.MAX_GOALS) {
+                throw new IllegalArgumentException("Fixture " + describe(forced) + ": goals must be in range 0.." + ScoreProbabilityTable.MAX_GOALS);
+            }
+            if (outcome != null && outcome != Winner.fromScore(homeGoals, awayGoals)) {
+                throw new IllegalArgumentException("Fixture " + describe(forced) + ": score does not match outcome");
+            }
+            return new Forcing(null, homeGoals, awayGoals);
+        }
+        if (outcome == null) {
+            throw new IllegalArgumentException("Fixture " + describe(forced) + ": outcome or score is required");
+        }
+        return new Forcing(outcome, null, null);
+    }
+
+    private static String describe(ForcedFixtureModel forced) {
+        return forced.getMatchId() != null
+                ? forced.getMatchId()
+                : forced.getHomeTeamCode() + "-" + forced.getAwayTeamCode();
+    }
+
+    private static List<ScenarioTeamModel> toTeams(SimulationResult result) {
+        int leagueSize = result.getLeagueSize();
+        int topN = Math.min(MonteCarloSimulation.TOP_POSITIONS, leagueSize);
+        int relegationFrom = Math.max(1, leagueSize - MonteCarloSimulation.RELEGATION_SLOTS + 1);
+
+        List<ScenarioTeamModel> teams = new ArrayList<>();
+        new TreeMap<>(result.getPercentages()).forEach((code, percentages) -> teams.add(new ScenarioTeamModel()
+                .footballClubCode(code)
+                .positionPredictions(Arrays.stream(percentages).boxed().toList())
+                .top4Prediction(result.getRangePercentage(code, 1, topN))
+                .relegationPrediction(result.getRangePercentage(code, relegationFrom, leagueSize))
+                .top4PredictionError(result.getRangeStandardError(code, 1, topN))
+                .relegationPredictionError(result.getRangeStandardError(code, relegationFrom, leagueSize))));
+        return teams;
+    }
+
+    private static byte[] sha256(String value) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
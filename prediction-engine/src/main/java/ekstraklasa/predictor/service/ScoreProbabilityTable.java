@@ -0,0 +1,262 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.MatchProbability;
+import ekstraklasa.predictor.model.Winner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Niezmienna tablica rozkładów wyników (bramki gospodarzy x bramki gości) dla każdego fixture,
+ * próbkowana metodą aliasów (Vose) - jedno losowanie i jeden odczyt daje od razu oba wyniki.
+ *
+ * Rozkład fixture to dwuwymiarowy rozkład Poissona (bivariate Poisson) z oczekiwanymi golami
+ * wyliczonymi z sił drużyn, obcięty do MAX_GOALS bramek na drużynę. Komórki każdego rozstrzygnięcia
+ * (wygrana gospodarzy / remis / wygrana gości) są następnie przeskalowane tak, żeby ich suma była równa
+ * prawdopodobieństwom z TeamFixturePredictor - Poisson decyduje tylko o rozkładzie wyniku wewnątrz
+ * rozstrzygnięcia (różnica bramek), a szanse na punkty pozostają takie jak w predyktorze.
+ *
+ * Indeksy fixtures odpowiadają kolejności listy przekazanej do of(). Bezpieczna do współdzielenia między wątkami.
+ */
+public final class ScoreProbabilityTable {
+
+    // maksymalna liczba bramek jednej drużyny w tablicy (wyższe wyniki są pomijalnie rzadkie)
+    public static final int MAX_GOALS = 6;
+    private static final int SIDE = MAX_GOALS + 1;
+    private static final int CELLS = SIDE * SIDE;
+
+    // średnie liczby bramek gospodarzy/gości przy równych siłach (ok. 2.6 gola na mecz)
+    private static final double BASE_HOME_GOALS = 1.45;
+    private static final double BASE_AWAY_GOALS = 1.15;
+    // jak mocno różnica sił przesuwa oczekiwane gole (exp(scale * różnica))
+    private static final double GOALS_STRENGTH_SCALE = 1.2;
+    // wspólny składnik obu Poissonów - dodatnia korelacja bramek (więcej remisów niż przy niezależnych)
+    private static final double GOALS_COVARIANCE = 0.08;
+
+    // [f * CELLS + komórka] -> prawdopodobieństwo komórki, próg akceptacji i alias
+    private final double[] probabilities;
+    private final double[] acceptance;
+    private final byte[] alias;
+    private final int fixtureCount;
+
+    private ScoreProbabilityTable(double[] probabilities, double[] acceptance, byte[] alias, int fixtureCount) {
+        this.probabilities = probabilities;
+        this.acceptance = acceptance;
+        this.alias = alias;
+        this.fixtureCount = fixtureCount;
+    }
+
+    public static ScoreProbabilityTable of(Map<FootballClub, Double> teamStrengthByClub, List<MatchFixture> fixtures) {
+        Map<String, Double> strengthByCode = TeamFixturePredictor.toStrengthByCode(teamStrengthByClub);
+
+        int n = fixtures.size();
+        double[] probabilities = new double[n * CELLS];
+        double[] acceptance = new double[n * CELLS];
+        byte[] alias = new byte[n * CELLS];
+        for (int f = 0; f < n; f++) {
+            double[] matrix = scoreMatrix(strengthByCode, fixtures.get(f));
+            System.arraycopy(matrix, 0, probabilities, f * CELLS, CELLS);
+            buildAlias(matrix, acceptance, alias, f * CELLS);
+        }
+        return new ScoreProbabilityTable(probabilities, acceptance, alias, n);
+    }
+
+    /**
+     * Kopia tablicy z podmienionymi rozkładami wskazanych fixtures (indeks fixture -> rozkład jak w scoreMatrix).
+     * Pozostałe fixtures są współdzielone bez przeliczania.
+     */
+    public ScoreProbabilityTable withDistributions(Map<Integer, double[]> distributions) {
+        double[] newProbabilities = probabilities.clone();
+        double[] newAcceptance = acceptance.clone();
+        byte[] newAlias = alias.clone();
+        distributions.forEach((fixture, matrix) -> {
+            System.arraycopy(matrix, 0, newProbabilities, fixture * CELLS, CELLS);
+            buildAlias(matrix, newAcceptance, newAlias, fixture * CELLS);
+        });
+        return new ScoreProbabilityTable(newProbabilities, newAcceptance, newAlias, fixtureCount);
+    }
+
+    /**
+     * Rozkład wyników fixture (kopia).
+     */
+    public double[] distribution(int fixture) {
+        return Arrays.copyOfRange(probabilities, fixture * CELLS, (fixture + 1) * CELLS);
+    }
+
+    /**
+     * Rozkład z jednym pewnym wynikiem.
+     */
+    public static double[] exactScore(int homeGoals, int awayGoals) {
+        if (homeGoals < 0 || homeGoals > MAX_GOALS || awayGoals < 0 || awayGoals > MAX_GOALS) {
+            throw new IllegalArgumentException("Goals must be in range 0.." + MAX_GOALS);
+        }
+        double[] matrix = new double[CELLS];
+        matrix[homeGoals * SIDE + awayGoals] = 1.0;
+        return matrix;
+    }
+
+    /**
+     * Rozkład warunkowy: tylko wyniki dające dane rozstrzygnięcie, w proporcjach z oryginalnego rozkładu.
+     */
+    public static double[] conditionOnOutcome(double[] matrix, Winner outcome) {
+        double[] conditioned = new double[CELLS];
+        double sum = 0.0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (Winner.fromScore(homeGoals(cell), awayGoals(cell)) != outcome) continue;
+            conditioned[cell] = matrix[cell];
+            sum += matrix[cell];
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Outcome " + outcome + " has zero probability");
+        }
+        for (int cell = 0; cell < CELLS; cell++) conditioned[cell] /= sum;
+        return conditioned;
+    }
+
+    /**
+     * Rozkład wyników fixture: komórka homeGoals * (MAX_GOALS + 1) + awayGoals, suma = 1.
+     */
+    public static double[] scoreMatrix(Map<String, Double> strengthByCode, MatchFixture fixture) {
+        MatchProbability outcome = TeamFixturePredictor.predictFixture(strengthByCode, fixture, null);
+
+        double homeStrength = 0.5;
+        double awayStrength = 0.5;
+        if (fixture != null && fixture.getHomeTeamCode() != null && fixture.getAwayTeamCode() != null) {
+            homeStrength = strengthByCode.getOrDefault(fixture.getHomeTeamCode(), 0.5);
+            awayStrength = strengthByCode.getOrDefault(fixture.getAwayTeamCode(), 0.5);
+        }
+        double homeExpected = BASE_HOME_GOALS * Math.exp(GOALS_STRENGTH_SCALE * (homeStrength - awayStrength));
+        double awayExpected = BASE_AWAY_GOALS * Math.exp(GOALS_STRENGTH_SCALE * (awayStrength - homeStrength));
+
+        double[] matrix = bivariatePoisson(homeExpected, awayExpected, GOALS_COVARIANCE);
+        return rescaleOutcomes(matrix, outcome);
+    }
+
+    public static int homeGoals(int score) {
+        return score / SIDE;
+    }
+
+    public static int awayGoals(int score) {
+        return score % SIDE;
+    }
+
+    public int size() {
+        return fixtureCount;
+    }
+
+    /**
+     * Losuje wynik fixture; zwraca zakodowaną komórkę - bramki odczytuje się przez homeGoals/awayGoals.
+     */
+    public int sample(int fixture, RandomGenerator random) {
+        double u = random.nextDouble() * CELLS;
+        int cell = (int) u;
+        int i = fixture * CELLS + cell;
+        return u - cell < acceptance[i] ? cell : alias[i];
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    /**
+     * Bivariate Poisson (Karlis & Ntzoufras) o średnich brzegowych homeExpected i awayExpected
+     * i kowariancji covariance, obcięty do MAX_GOALS.
+     */
+    private static double[] bivariatePoisson(double homeExpected, double awayExpected, double covariance) {
+        double shared = Math.min(covariance, 0.5 * Math.min(homeExpected, awayExpected));
+        double home = homeExpected - shared;
+        double away = awayExpected - shared;
+        double ratio = shared / (home * away);
+
+        double[] homeTerms = poissonTerms(home);
+        double[] awayTerms = poissonTerms(away);
+        double base = Math.exp(-shared);
+
+        double[] matrix = new double[CELLS];
+        for (int x = 0; x <= MAX_GOALS; x++) {
+            for (int y = 0; y <= MAX_GOALS; y++) {
+                // suma po wspólnych bramkach k: C(x,k) C(y,k) k! ratio^k
+                double sum = 0.0;
+                double term = 1.0;
+                for (int k = 0; k <= Math.min(x, y); k++) {
+                    sum += term;
+                    term *= (double) (x - k) * (y - k) / (k + 1) * ratio;
+                }
+                matrix[x * SIDE + y] = base * homeTerms[x] * awayTerms[y] * sum;
+            }
+        }
+        return matrix;
+    }
+
+    private static double[] poissonTerms(double lambda) {
+        double[] terms = new double[SIDE];
+        terms[0] = Math.exp(-lambda);
+        for (int k = 1; k <= MAX_GOALS; k++) {
+            terms[k] = terms[k - 1] * lambda / k;
+        }
+        return terms;
+    }
+
+    private static double[] rescaleOutcomes(double[] matrix, MatchProbability outcome) {
+        double homeSum = 0.0, drawSum = 0.0, awaySum = 0.0;
+        for (int x = 0; x <= MAX_GOALS; x++) {
+            for (int y = 0; y <= MAX_GOALS; y++) {
+                double p = matrix[x * SIDE + y];
+                if (x > y) homeSum += p;
+                else if (x == y) drawSum += p;
+                else awaySum += p;
+            }
+        }
+
+        double homeFactor = outcome.homeWin() / homeSum;
+        double drawFactor = outcome.draw() / drawSum;
+        double awayFactor = outcome.awayWin() / awaySum;
+        for (int x = 0; x <= MAX_GOALS; x++) {
+            for (int y = 0; y <= MAX_GOALS; y++) {
+                matrix[x * SIDE + y] *= x > y ? homeFactor : x == y ? drawFactor : awayFactor;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Metoda aliasów Vose'a: komórki o wadze powyżej średniej "dopełniają" komórki poniżej średniej.
+     */
+    private static void buildAlias(double[] matrix, double[] acceptance, byte[] alias, int offset) {
+        double total = 0.0;
+        for (double p : matrix) total += p;
+
+        double[] scaled = new double[CELLS];
+        int[] small = new int[CELLS];
+        int[] large = new int[CELLS];
+        int smallCount = 0, largeCount = 0;
+        for (int c = 0; c < CELLS; c++) {
+            scaled[c] = matrix[c] * CELLS / total;
+            if (scaled[c] < 1.0) small[smallCount++] = c;
+            else large[largeCount++] = c;
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            acceptance[offset + s] = scaled[s];
+            alias[offset + s] = (byte) l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        // pozostałe komórki (także resztki błędów zaokrągleń) mają wagę równą średniej
+        while (largeCount > 0) {
+            int l = large[--largeCount];
+            acceptance[offset + l] = 1.0;
+            alias[offset + l] = (byte) l;
+        }
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            acceptance[offset + s] = 1.0;
+            alias[offset + s] = (byte) s;
+        }
+    }
+}
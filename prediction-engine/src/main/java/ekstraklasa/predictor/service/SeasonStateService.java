@@ -0,0 +1,164 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.entity.SeasonInputSnapshotEntity;
+import ekstraklasa.predictor.reader.CSVFileReader;
+import ekstraklasa.predictor.reader.ReadResultSnapshot;
+import ekstraklasa.predictor.repository.SeasonInputSnapshotRepository;
+import ekstraklasa.predictor.repository.SimulatedStandingSnapshotRepository;
+import ekstraklasa.predictor.repository.SnapshotTimestamp;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Ostatnio wczytany stan sezonu w pamięci (wczytany plik, siły drużyn, tabela bazowa, rozkłady wyników)
+ * razem ze znacznikiem czasu snapshotu, który z niego policzono.
+ *
+ * Publikowany przez SimulatedStandingService po zapisaniu snapshotu (a dla pliku bez zmian - przez
+ * publishUnchanged, dla snapshotu, który zostaje aktualny); plik zapisywany jest też w bazie
+ * (SeasonInputSnapshotEntity), więc po restarcie i na instancjach, które go nie przetwarzały, stan
+ * odtwarzany jest z najnowszego snapshotu standings. Bez takiego snapshotu stanu nie ma
+ * (SeasonStateUnavailableException) - do pierwszego przetworzonego pliku.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeasonStateService {
+
+    // limit dokumentu Mongo to 16 MB - większy plik zostaje tylko w pamięci tej instancji
+    private static final int MAX_PERSISTED_BYTES = 15 * 1024 * 1024;
+
+    /**
+     * Stan sezonu i znacznik czasu snapshotu (timestamp standings w bazie).
+     */
+    public record SeasonState(Instant timestamp, SimulationInput input) {
+    }
+
+    /**
+     * Brak stanu sezonu - żaden plik nie został jeszcze przetworzony albo jego stanu nie da się odtworzyć.
+     */
+    public static class SeasonStateUnavailableException extends IllegalStateException {
+        public SeasonStateUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private final SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository;
+    private final SeasonInputSnapshotRepository seasonInputSnapshotRepository;
+
+    private volatile SeasonState current;
+    // najnowszy zapisany snapshot standings (SnapshotCommittedEvent, także z innych instancji)
+    private volatile Instant newestCommitted;
+
+    public void publish(Instant timestamp, SimulationInput input) {
+        current = new SeasonState(timestamp, input);
+        log.info("Published season state for snapshot {}", timestamp);
+        persist(timestamp, input.read());
+    }
+
+    /**
+     * Plik bez zmian w danych do obliczeń - najnowszy snapshot standings zostaje aktualny, a stan sezonu
+     * publikowany jest dla niego z bazy albo, gdy go tam nie ma, z ostatniego pliku (lastInput).
+     *
+     * @return false gdy nie ma żadnego snapshotu standings - plik trzeba przetworzyć w całości
+     */
+    public boolean publishUnchanged(ReadResultSnapshot.Parser lastInput) throws IOException {
+        Optional<Instant> latest = latestStandings();
+        if (latest.isEmpty()) return false;
+
+        Instant timestamp = latest.get();
+        synchronized (this) {
+            if (current != null && current.timestamp().equals(timestamp)) return true;
+            Optional<SeasonState> restored = restore(timestamp);
+            if (restored.isPresent()) {
+                current = restored.get();
+                return true;
+            }
+        }
+        CSVFileReader.ReadResult read = lastInput.parse();
+        // koniec sezonu - bez fixtures nie ma czego symulować w scenariuszach
+        if (read.fixtures != null && !read.fixtures.isEmpty()) {
+            publish(timestamp, SimulationInput.of(read));
+        }
+        return true;
+    }
+
+    /**
+     * Snapshot standings zapisany (np. przez inną instancję) - nowszy niż bieżący stan przeładowywany
+     * jest przy następnym odczycie.
+     */
+    public void onStandingsCommitted(Instant timestamp) {
+        synchronized (this) {
+            if (newestCommitted == null || timestamp.isAfter(newestCommitted)) newestCommitted = timestamp;
+        }
+    }
+
+    /**
+     * @throws SeasonStateUnavailableException gdy stanu nie ma ani w pamięci, ani w bazie
+     */
+    public SeasonState current() {
+        SeasonState state = current;
+        if (state != null && !isStale(state)) return state;
+
+        synchronized (this) {
+            if (current == null || isStale(current)) {
+                latestStandings().flatMap(this::restore).ifPresent(restored -> current = restored);
+            }
+            if (current == null) {
+                throw new SeasonStateUnavailableException("No season state yet - no results file has been ingested");
+            }
+            // nowszego pliku nie ma jeszcze w bazie - zostaje poprzedni stan ze swoim timestampem
+            return current;
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private boolean isStale(SeasonState state) {
+        Instant newest = newestCommitted;
+        return newest != null && state.timestamp().isBefore(newest);
+    }
+
+    private void persist(Instant timestamp, CSVFileReader.ReadResult read) {
+        try {
+            byte[] data = ReadResultSnapshot.encode(read, null);
+            if (data.length > MAX_PERSISTED_BYTES) {
+                log.warn("Season input for snapshot {} has {} bytes - not saved, other instances keep their state", timestamp, data.length);
+                return;
+            }
+            seasonInputSnapshotRepository.save(SeasonInputSnapshotEntity.builder()
+                    .timestamp(timestamp)
+                    .data(data)
+                    .build());
+            seasonInputSnapshotRepository.deleteByTimestampLessThan(timestamp);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save season input for snapshot {} - state kept only in memory", timestamp, e);
+        }
+    }
+
+    private Optional<Instant> latestStandings() {
+        return simulatedStandingSnapshotRepository.findFirstByOrderByTimestampDesc().map(SnapshotTimestamp::getTimestamp);
+    }
+
+    private Optional<SeasonState> restore(Instant timestamp) {
+        Optional<SeasonInputSnapshotEntity> saved = seasonInputSnapshotRepository.findByTimestamp(timestamp);
+        if (saved.isEmpty()) {
+            log.warn("No saved season input for standings snapshot {}", timestamp);
+            return Optional.empty();
+        }
+
+        try {
+            CSVFileReader.ReadResult read = ReadResultSnapshot.decode(saved.get().getData());
+            if (read == null) return Optional.empty();
+            log.info("Restored season state for snapshot {}", timestamp);
+            return Optional.of(new SeasonState(timestamp, SimulationInput.of(read)));
+        } catch (RuntimeException e) {
+            log.warn("Could not restore season state for snapshot {}", timestamp, e);
+            return Optional.empty();
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package ekstraklasa.predictor.service;
 
-import ekstraklasa.predictor.entity.SimulatedStandingEntity;
+import ekstraklasa.predictor.entity.SimulatedStandingEntry;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.model.AdaptiveSimulationSettings;
+import ekstraklasa.predictor.model.PackedHistogram;
+import ekstraklasa.predictor.model.SimulationProgress;
 import ekstraklasa.predictor.model.SimulationResult;
 import ekstraklasa.predictor.model.LeagueStandingsEntry;
 import ekstraklasa.predictor.reader.CSVFileReader;
-import ekstraklasa.predictor.repository.SimulatedStandingRepository;
+import ekstraklasa.predictor.repository.SimulatedStandingSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -23,24 +29,76 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SimulatedStandingService {
 
-    private final SimulatedStandingRepository simulatedStandingRepository;
+    private final SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository;
+    private final SimulationMetrics simulationMetrics;
+    private final SeasonStateService seasonStateService;
+
+    // 0 -> liczba dostępnych rdzeni
+    @Value("${consumable.montecarlo.parallelism:0}")
+    private int monteCarloParallelism;
+
+    // stałe ziarno dla powtarzalnych uruchomień; brak -> losowe ziarno zapisywane w snapshot
+    @Value("${consumable.montecarlo.seed:#{null}}")
+    private Long monteCarloSeed;
+
+    // tryb adaptacyjny: partie symulacji aż do osiągnięcia tolerancji błędu lub budżetu czasu
+    @Value("${consumable.montecarlo.adaptive.enabled:false}")
+    private boolean adaptiveEnabled;
+
+    @Value("${consumable.montecarlo.adaptive.batch-size:2000}")
+    private int adaptiveBatchSize;
+
+    @Value("${consumable.montecarlo.adaptive.max-simulations:200000}")
+    private int adaptiveMaxSimulations;
+
+    // maksymalny błąd standardowy w punktach procentowych
+    @Value("${consumable.montecarlo.adaptive.tolerance:0.25}")
+    private double adaptiveTolerance;
+
+    @Value("${consumable.montecarlo.adaptive.time-budget-ms:60000}")
+    private long adaptiveTimeBudgetMs;
 
     // nowa metoda przyjmująca już wczytany plik (np. z folderu consumable)
-    public List<SimulatedStandingEntity> generateAndSaveSimulatedStandings(CSVFileReader.ReadResult read, Integer monteCarloSimulations, Instant timestamp) throws Exception {
-        if (read == null) return Collections.emptyList();
+    public SimulatedStandingSnapshotEntity generateAndSaveSimulatedStandings(CSVFileReader.ReadResult read, Integer monteCarloSimulations, Instant timestamp) throws Exception {
+        return generateAndSaveSimulatedStandings(read, monteCarloSimulations, timestamp, new SimulationProgress());
+    }
+
+    // progress - postęp symulacji odczytywany w trakcie (status zadania, SSE, metryki)
+    public SimulatedStandingSnapshotEntity generateAndSaveSimulatedStandings(CSVFileReader.ReadResult read,
+                                                                           Integer monteCarloSimulations,
+                                                                           Instant timestamp,
+                                                                           SimulationProgress progress) throws Exception {
+        if (read == null) return null;
+        simulationMetrics.track(progress);
 
         List<LeagueStandingsEntry> standings = TableCalculationsService.calculateLeagueStandings(read.results);
 
         Map<String, double[]> percentages = Collections.emptyMap();
-        if (monteCarloSimulations != null && monteCarloSimulations > 0) {
-            SimulationResult sim = MonteCarloSimulation.run(read, monteCarloSimulations);
+        SimulationResult sim = null;
+        long seed = monteCarloSeed != null ? monteCarloSeed : MonteCarloSimulation.newSeed();
+        // stan sezonu liczony raz - używany przez symulację i później przez scenariusze what-if
+        SimulationInput input = null;
+        if (adaptiveEnabled) {
+            input = SimulationInput.of(read);
+            sim = MonteCarloSimulation.runAdaptive(input, adaptiveSettings(), resolveParallelism(), seed, progress);
+            percentages = sim.getPercentages();
+            log.info("Adaptive Monte Carlo finished after {} simulations, max standard error {}",
+                    sim.getSimulations(), MonteCarloSimulation.maxStandardError(sim));
+        } else if (monteCarloSimulations != null && monteCarloSimulations > 0) {
+            input = SimulationInput.of(read);
+            sim = MonteCarloSimulation.run(input, monteCarloSimulations, resolveParallelism(), seed, progress);
             percentages = sim.getPercentages();
         }
 
+        // bez symulacji stan sezonu i tak jest publikowany - scenariusze what-if go potrzebują
+        if (input == null && read.fixtures != null && !read.fixtures.isEmpty()) {
+            input = SimulationInput.of(read);
+        }
+
         Instant ts = timestamp == null ? Instant.now() : timestamp;
 
-        List<SimulatedStandingEntity> entities = new ArrayList<>();
-        final int relegationSlots = 2; // domyślna liczba miejsc spadkowych
+        List<SimulatedStandingEntry> entries = new ArrayList<>();
+        final int relegationSlots = MonteCarloSimulation.RELEGATION_SLOTS;
 
         for (LeagueStandingsEntry entry : standings) {
             if (entry == null || entry.getFootballClub() == null) continue;
@@ -49,6 +107,8 @@ public class SimulatedStandingService {
 
             Double top4Prediction = null;
             Double relegationPrediction = null;
+            Double top4PredictionError = null;
+            Double relegationPredictionError = null;
 
             if (percentages != null && percentages.containsKey(code)) {
                 double[] arr = percentages.get(code);
@@ -63,24 +123,55 @@ public class SimulatedStandingService {
                 double sumRel = 0.0;
                 for (int i = start; i < arr.length; i++) sumRel += arr[i];
                 relegationPrediction = sumRel;
+
+                // błąd standardowy obu estymat (pkt procentowe)
+                top4PredictionError = sim.getRangeStandardError(code, 1, topN);
+                relegationPredictionError = sim.getRangeStandardError(code, start + 1, arr.length);
             }
 
-            SimulatedStandingEntity entity = SimulatedStandingEntity.builder()
+            SimulatedStandingEntry standing = SimulatedStandingEntry.builder()
                     .footballClubCode(code)
-                    .timestamp(ts)
                     .matchPlayed(entry.getPlayedGames())
                     .ranking(entry.getPosition())
                     .points(entry.getPoints())
                     .top4Prediction(top4Prediction)
                     .relegationPrediction(relegationPrediction)
+                    .top4PredictionError(top4PredictionError)
+                    .relegationPredictionError(relegationPredictionError)
+                    .positionHistogram(sim == null ? null : PackedHistogram.encode(sim.getPositionCounts().get(code)))
+                    .pointsHistogram(sim == null ? null : PackedHistogram.encode(sim.getPointsCounts().get(code)))
                     .build();
 
-            entities.add(entity);
+            entries.add(standing);
         }
 
-        if (entities.isEmpty()) return Collections.emptyList();
+        if (entries.isEmpty()) return null;
+
+        SimulatedStandingSnapshotEntity snapshot = SimulatedStandingSnapshotEntity.builder()
+                .timestamp(ts)
+                .seed(sim == null ? null : seed)
+                .simulations(sim == null ? null : sim.getSimulations())
+                .standings(entries)
+                .build();
+
+        log.info("Saving snapshot with {} simulated standings to the database...", entries.size());
+        SimulatedStandingSnapshotEntity saved = simulatedStandingSnapshotRepository.insert(snapshot);
+        if (input != null) {
+            seasonStateService.publish(ts, input);
+        }
+        return saved;
+    }
+
+    private AdaptiveSimulationSettings adaptiveSettings() {
+        return new AdaptiveSimulationSettings(
+                adaptiveBatchSize,
+                adaptiveMaxSimulations,
+                adaptiveTolerance,
+                Duration.ofMillis(adaptiveTimeBudgetMs)
+        );
+    }
 
-        log.info("Saving {} simulated standings to the database...", entities.size());
-        return simulatedStandingRepository.saveAll(entities);
+    private int resolveParallelism() {
+        return monteCarloParallelism > 0 ? monteCarloParallelism : Runtime.getRuntime().availableProcessors();
     }
 }
@@ -0,0 +1,59 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.SimulationResult;
+import ekstraklasa.predictor.reader.CSVFileReader;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dane wejściowe Monte Carlo liczone raz z wczytanego pliku: siły drużyn, zamrożona tabela bazowa
+ * i tablice rozkładów wyników fixtures. Niezmienne - współdzielone przez workery i przez kolejne
+ * uruchomienia (np. scenariusze what-if na tym samym stanie sezonu).
+ */
+public record SimulationInput(CSVFileReader.ReadResult read,
+                              Map<FootballClub, Double> strength,
+                              FrozenLeagueTable baseTable,
+                              ScoreProbabilityTable scores) {
+
+    public static SimulationInput of(CSVFileReader.ReadResult read) {
+        List<MatchFixture> fixtures = read.fixtures;
+        if (fixtures == null || fixtures.isEmpty()) {
+            throw new IllegalStateException("No fixtures to simulate");
+        }
+
+        // calculate strengths and score tables once
+        var strength = TeamStrengthCalculationService.calculateAllTeamsStrength(read.clubs, read.results);
+        ScoreProbabilityTable scores = ScoreProbabilityTable.of(strength, fixtures);
+        // tabela z zakończonych meczów liczona raz - symulacje nakładają tylko fixtures
+        FrozenLeagueTable baseTable = FrozenLeagueTable.of(read.results, fixtures);
+
+        return new SimulationInput(read, strength, baseTable, scores);
+    }
+
+    public List<FootballClub> clubs() {
+        return read.clubs;
+    }
+
+    public int leagueSize() {
+        return read.clubs.size();
+    }
+
+    /**
+     * Ten sam stan sezonu z innymi rozkładami wyników (np. z wymuszonymi fixtures).
+     */
+    public SimulationInput withScores(ScoreProbabilityTable scores) {
+        return new SimulationInput(read, strength, baseTable, scores);
+    }
+
+    SimulationResult emptyResult() {
+        SimulationResult result = new SimulationResult(leagueSize());
+        // ensure all teams are present
+        for (FootballClub club : read.clubs) {
+            result.ensureTeam(club.getCode());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.SimulationProgress;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Gauge Micrometera dla ostatnio uruchomionej symulacji Monte Carlo
+ * (/actuator/metrics/montecarlo.simulations.*).
+ *
+ * Gauge czytają SimulationProgress dopiero przy odczycie metryk - pętla symulacji nic tu nie kosztuje.
+ */
+@Component
+public class SimulationMetrics {
+
+    private final AtomicReference<SimulationProgress> current = new AtomicReference<>(new SimulationProgress());
+
+    public SimulationMetrics(MeterRegistry registry) {
+        Gauge.builder("montecarlo.simulations.completed", current, ref -> ref.get().snapshot().completed())
+                .description("Completed simulations of the current (or last) Monte Carlo run")
+                .register(registry);
+        Gauge.builder("montecarlo.simulations.total", current, ref -> ref.get().snapshot().total())
+                .description("Planned simulations of the current (or last) Monte Carlo run")
+                .register(registry);
+        Gauge.builder("montecarlo.simulations.rate", current, ref -> ref.get().snapshot().simulationsPerSecond())
+                .description("Simulations per second of the current (or last) Monte Carlo run")
+                .baseUnit("simulations/s")
+                .register(registry);
+        Gauge.builder("montecarlo.simulations.eta", current, SimulationMetrics::etaSeconds)
+                .description("Estimated time until the current Monte Carlo run finishes")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Podpina postęp uruchamianej symulacji pod gauge.
+     */
+    public void track(SimulationProgress progress) {
+        current.set(progress);
+    }
+
+    private static double etaSeconds(AtomicReference<SimulationProgress> ref) {
+        Double eta = ref.get().snapshot().etaSeconds();
+        return eta == null ? Double.NaN : eta;
+    }
+}
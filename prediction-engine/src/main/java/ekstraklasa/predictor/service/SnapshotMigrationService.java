@@ -0,0 +1,177 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.cache.ClubHistoryCache;
+import ekstraklasa.predictor.cache.SimulatedStandingCacheRepository;
+import ekstraklasa.predictor.cache.TeamStrengthCacheRepository;
+import ekstraklasa.predictor.entity.SeasonInputSnapshotEntity;
+import ekstraklasa.predictor.entity.SimulatedStandingEntity;
+import ekstraklasa.predictor.entity.SimulatedStandingEntry;
+import ekstraklasa.predictor.entity.SimulatedStandingSnapshotEntity;
+import ekstraklasa.predictor.entity.TeamStrengthEntity;
+import ekstraklasa.predictor.entity.TeamStrengthEntry;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
+import ekstraklasa.predictor.model.SnapshotCommittedEvent.SnapshotKind;
+import ekstraklasa.predictor.repository.SimulatedStandingRepository;
+import ekstraklasa.predictor.repository.SimulatedStandingSnapshotRepository;
+import ekstraklasa.predictor.repository.SnapshotTimestamp;
+import ekstraklasa.predictor.repository.TeamStrengthRepository;
+import ekstraklasa.predictor.repository.TeamStrengthSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Migracja online starych dokumentów per drużyna (simulated_standings, team_strengths)
+ * do dokumentów per snapshot (simulated_standing_snapshots, team_strength_snapshots).
+ *
+ * Działa w tle po starcie aplikacji, od najnowszego snapshotu - API obsługuje zapytania w trakcie.
+ * Każdy snapshot: wstawienie dokumentu (id wyprowadzone z timestampu, więc ponowienie po awarii
+ * nadpisuje ten sam dokument), a dopiero potem usunięcie starych dokumentów. Dopóki w nowej kolekcji
+ * nie ma żadnego snapshotu, cache czytają stare dokumenty (toSnapshot). Dokumenty bez timestampu
+ * nie są ani migrowane, ani usuwane - zostają w starej kolekcji z ostrzeżeniem w logu.
+ *
+ * Przed migracją zakłada indeksy z adnotacji @Indexed (malejący, unikalny timestamp) kolekcji snapshotów,
+ * także season_input_snapshots (SeasonStateService) - bez
+ * auto-index-creation, żeby brak bazy przy starcie nie blokował uruchomienia aplikacji.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SnapshotMigrationService {
+
+    private final SimulatedStandingRepository simulatedStandingRepository;
+    private final SimulatedStandingSnapshotRepository simulatedStandingSnapshotRepository;
+    private final TeamStrengthRepository teamStrengthRepository;
+    private final TeamStrengthSnapshotRepository teamStrengthSnapshotRepository;
+    private final SimulatedStandingCacheRepository simulatedStandingCacheRepository;
+    private final TeamStrengthCacheRepository teamStrengthCacheRepository;
+    private final ClubHistoryCache clubHistoryCache;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${storage.snapshot-migration.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        if (!enabled) return;
+        Thread.ofVirtual().name("snapshot-migration").start(() -> {
+            try {
+                ensureIndexes(SimulatedStandingSnapshotEntity.class);
+                ensureIndexes(TeamStrengthSnapshotEntity.class);
+                ensureIndexes(SeasonInputSnapshotEntity.class);
+                migrateSimulatedStandings();
+                migrateTeamStrengths();
+            } catch (Exception e) {
+                log.error("Snapshot migration failed - it will be retried on next start", e);
+            }
+        });
+    }
+
+    public void migrateSimulatedStandings() {
+        int migrated = 0;
+        Optional<SnapshotTimestamp> newest;
+        while ((newest = simulatedStandingRepository.findFirstByTimestampNotNullOrderByTimestampDesc()).isPresent()) {
+            Instant timestamp = newest.get().getTimestamp();
+            if (!simulatedStandingSnapshotRepository.existsByTimestamp(timestamp)) {
+                simulatedStandingSnapshotRepository.save(toSnapshot(simulatedStandingRepository.findByTimestamp(timestamp)));
+            }
+            simulatedStandingRepository.deleteByTimestamp(timestamp);
+            migrated++;
+        }
+        warnAboutUntimestamped("simulated_standings", simulatedStandingRepository.countByTimestampIsNull());
+
+        if (migrated > 0) {
+            log.info("Migrated {} simulated standing snapshots", migrated);
+            simulatedStandingCacheRepository.refresh();
+            clubHistoryCache.invalidate(SnapshotKind.SIMULATED_STANDINGS);
+        }
+    }
+
+    public void migrateTeamStrengths() {
+        int migrated = 0;
+        Optional<SnapshotTimestamp> newest;
+        while ((newest = teamStrengthRepository.findFirstByTimestampNotNullOrderByTimestampDesc()).isPresent()) {
+            Instant timestamp = newest.get().getTimestamp();
+            if (!teamStrengthSnapshotRepository.existsByTimestamp(timestamp)) {
+                teamStrengthSnapshotRepository.save(toTeamStrengthSnapshot(teamStrengthRepository.findByTimestamp(timestamp)));
+            }
+            teamStrengthRepository.deleteByTimestamp(timestamp);
+            migrated++;
+        }
+        warnAboutUntimestamped("team_strengths", teamStrengthRepository.countByTimestampIsNull());
+
+        if (migrated > 0) {
+            log.info("Migrated {} team strength snapshots", migrated);
+            teamStrengthCacheRepository.refresh();
+            clubHistoryCache.invalidate(SnapshotKind.TEAM_STRENGTHS);
+        }
+    }
+
+    // dokumenty bez timestampu nie należą do żadnego snapshotu - zostają w starej kolekcji do ręcznej decyzji
+    private static void warnAboutUntimestamped(String collection, long count) {
+        if (count > 0) {
+            log.warn("{} documents without timestamp left in {} - they cannot be migrated and are not deleted", count, collection);
+        }
+    }
+
+    private void ensureIndexes(Class<?> entityClass) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entityClass);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(entityClass)
+                .forEach(indexOps::createIndex);
+    }
+
+    /**
+     * Składa dokument snapshotu ze starych dokumentów per drużyna o tym samym timestampie.
+     */
+    public static SimulatedStandingSnapshotEntity toSnapshot(List<SimulatedStandingEntity> legacy) {
+        SimulatedStandingEntity first = legacy.getFirst();
+        return SimulatedStandingSnapshotEntity.builder()
+                .id(legacyId(first.getTimestamp()))
+                .timestamp(first.getTimestamp())
+                .standings(legacy.stream()
+                        .filter(Objects::nonNull)
+                        .map(e -> SimulatedStandingEntry.builder()
+                                .legacyId(e.getId())
+                                .footballClubCode(e.getFootballClubCode())
+                                .matchPlayed(e.getMatchPlayed())
+                                .ranking(e.getRanking())
+                                .points(e.getPoints())
+                                .top4Prediction(e.getTop4Prediction())
+                                .relegationPrediction(e.getRelegationPrediction())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    public static TeamStrengthSnapshotEntity toTeamStrengthSnapshot(List<TeamStrengthEntity> legacy) {
+        TeamStrengthEntity first = legacy.getFirst();
+        return TeamStrengthSnapshotEntity.builder()
+                .id(legacyId(first.getTimestamp()))
+                .timestamp(first.getTimestamp())
+                .strengths(legacy.stream()
+                        .filter(Objects::nonNull)
+                        .map(e -> TeamStrengthEntry.builder()
+                                .legacyId(e.getId())
+                                .footballClubCode(e.getFootballClubCode())
+                                .strength(e.getStrength())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    private static String legacyId(Instant timestamp) {
+        return "legacy-" + timestamp;
+    }
+}
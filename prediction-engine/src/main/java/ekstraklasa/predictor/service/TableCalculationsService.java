@@ -24,49 +24,24 @@ public class TableCalculationsService {
             return new ArrayList<>();
         }
 
-        Map<String, LeagueStandingsEntry> standingsMap = new HashMap<>();
-        Set<String> processedMatchIds = new HashSet<>();
-        List<MatchResult> uniqueResults = new ArrayList<>();
-
-        for (MatchResult matchResult : results) {
-            if (!isValidResult(matchResult)) {
-                continue;
-            }
-
-            String matchId = matchResult.getMatchId();
-            if (matchId != null && processedMatchIds.contains(matchId)) {
-                // pomijamy duplikaty tego samego meczu
-                continue;
-            }
-            if (matchId != null) {
-                processedMatchIds.add(matchId);
-            }
-
-            // dodajemy do listy unikalnych wyników (przydatne do head-to-head)
-            uniqueResults.add(matchResult);
-
-            String homeTeamCode = matchResult.getHomeTeamCode();
-            String awayTeamCode = matchResult.getAwayTeamCode();
-            Integer homeGoals = matchResult.getHomeGoals();
-            Integer awayGoals = matchResult.getAwayGoals();
-
-            LeagueStandingsEntry homeEntry = getOrCreateStandingsEntry(standingsMap, homeTeamCode);
-            LeagueStandingsEntry awayEntry = getOrCreateStandingsEntry(standingsMap, awayTeamCode);
-
-            updateEntriesForMatch(homeEntry, awayEntry, homeGoals, awayGoals);
-        }
-
-        List<LeagueStandingsEntry> sortedStandings = new ArrayList<>(standingsMap.values());
-        // sortujemy z wykorzystaniem head-to-head
-        sortStandingsUsingHeadToHead(sortedStandings, uniqueResults);
-        assignPositions(sortedStandings, uniqueResults);
+        LeagueTableAccumulator accumulator = new LeagueTableAccumulator();
+        results.forEach(accumulator::accept);
+        return accumulator.standings();
+    }
 
-        return sortedStandings;
+    /**
+     * Sortuje tabelę (punkty, potem mini-liga head-to-head) i nadaje pozycje z uwzględnieniem ex aequo.
+     */
+    static void sortAndAssignPositions(List<LeagueStandingsEntry> standings,
+                                       Map<String, Integer> teamIndex,
+                                       HeadToHeadMatrix headToHead) {
+        sortStandingsUsingHeadToHead(standings, teamIndex, headToHead);
+        assignPositions(standings, teamIndex, headToHead);
     }
 
     // --- helper methods -----------------------------------------------------------------
 
-    private static boolean isValidResult(MatchResult matchResult) {
+    static boolean isValidResult(MatchResult matchResult) {
         if (matchResult == null) {
             return false;
         }
@@ -82,7 +57,7 @@ public class TableCalculationsService {
         return true;
     }
 
-    private static LeagueStandingsEntry getOrCreateStandingsEntry(Map<String, LeagueStandingsEntry> standingsMap, String teamCode) {
+    static LeagueStandingsEntry getOrCreateStandingsEntry(Map<String, LeagueStandingsEntry> standingsMap, String teamCode) {
         LeagueStandingsEntry existingEntry = standingsMap.get(teamCode);
         if (existingEntry != null) {
             return existingEntry;
@@ -107,7 +82,7 @@ public class TableCalculationsService {
         return newEntry;
     }
 
-    private static void updateEntriesForMatch(LeagueStandingsEntry homeEntry, LeagueStandingsEntry awayEntry, Integer homeGoals, Integer awayGoals) {
+    static void updateEntriesForMatch(LeagueStandingsEntry homeEntry, LeagueStandingsEntry awayEntry, Integer homeGoals, Integer awayGoals) {
         // aktualizujemy liczby meczów
         homeEntry.setPlayedGames(homeEntry.getPlayedGames() + 1);
         awayEntry.setPlayedGames(awayEntry.getPlayedGames() + 1);
@@ -136,7 +111,9 @@ public class TableCalculationsService {
         }
     }
 
-    private static void sortStandingsUsingHeadToHead(List<LeagueStandingsEntry> standings, List<MatchResult> uniqueResults) {
+    private static void sortStandingsUsingHeadToHead(List<LeagueStandingsEntry> standings,
+                                                     Map<String, Integer> teamIndex,
+                                                     HeadToHeadMatrix headToHead) {
         // najpierw ustawiamy ogólną różnicę bramek
         for (LeagueStandingsEntry entry : standings) {
             int goalsFor = entry.getGoalsFor();
@@ -171,7 +148,7 @@ public class TableCalculationsService {
                 if (code != null) groupCodes.add(code);
             }
 
-            Map<String, HeadToHeadStats> h2h = computeHeadToHeadMap(groupCodes, uniqueResults);
+            Map<String, HeadToHeadStats> h2h = computeHeadToHeadMap(groupCodes, teamIndex, headToHead);
 
             group.sort((a, b) -> {
                 String aCode = a.getFootballClub() == null ? "" : a.getFootballClub().getCode();
@@ -184,7 +161,7 @@ public class TableCalculationsService {
                 int cmp = Integer.compare(hb.points, ha.points);
                 if (cmp != 0) return cmp;
                 // 2) różnica bramek w bezpośrednich meczach
-                cmp = Integer.compare(hb.goalDifference(), ha.goalDifference());
+                cmp = Integer.compare(hb.goalDifference, ha.goalDifference);
                 if (cmp != 0) return cmp;
                 // 3) ogólna różnica bramek
                 cmp = Integer.compare(b.getGoalDifference(), a.getGoalDifference());
@@ -203,64 +180,40 @@ public class TableCalculationsService {
         standings.addAll(result);
     }
 
-    private static Map<String, HeadToHeadStats> computeHeadToHeadMap(Set<String> groupCodes, List<MatchResult> uniqueResults) {
+    private static Map<String, HeadToHeadStats> computeHeadToHeadMap(Set<String> groupCodes,
+                                                                     Map<String, Integer> teamIndex,
+                                                                     HeadToHeadMatrix headToHead) {
         Map<String, HeadToHeadStats> map = new HashMap<>();
         for (String code : groupCodes) {
-            map.put(code, new HeadToHeadStats());
-        }
-
-        for (MatchResult m : uniqueResults) {
-            String home = m.getHomeTeamCode();
-            String away = m.getAwayTeamCode();
-            if (home == null || away == null) continue;
-            if (!groupCodes.contains(home) || !groupCodes.contains(away)) continue;
-
-            HeadToHeadStats hHome = map.get(home);
-            HeadToHeadStats hAway = map.get(away);
-            if (hHome == null || hAway == null) continue;
-
-            int hg = m.getHomeGoals();
-            int ag = m.getAwayGoals();
-
-            hHome.goalsFor += hg;
-            hHome.goalsAgainst += ag;
-            hAway.goalsFor += ag;
-            hAway.goalsAgainst += hg;
-
-            if (hg > ag) {
-                hHome.points += 3;
-            } else if (hg < ag) {
-                hAway.points += 3;
-            } else {
-                hHome.points += 1;
-                hAway.points += 1;
+            HeadToHeadStats stats = new HeadToHeadStats();
+            int team = teamIndex.get(code);
+            for (String opponentCode : groupCodes) {
+                if (code.equals(opponentCode)) continue;
+                int opponent = teamIndex.get(opponentCode);
+                stats.points += headToHead.points(team, opponent);
+                stats.goalDifference += headToHead.goalDifference(team, opponent);
             }
+            map.put(code, stats);
         }
-
         return map;
     }
 
-    private static boolean areTied(LeagueStandingsEntry a, LeagueStandingsEntry b, List<MatchResult> uniqueResults) {
+    private static boolean areTied(LeagueStandingsEntry a, LeagueStandingsEntry b,
+                                   Map<String, Integer> teamIndex, HeadToHeadMatrix headToHead) {
         if (!Objects.equals(a.getPoints(), b.getPoints())) return false;
         String aCode = a.getFootballClub() == null ? null : a.getFootballClub().getCode();
         String bCode = b.getFootballClub() == null ? null : b.getFootballClub().getCode();
         if (aCode == null || bCode == null) return false;
 
-        Set<String> pair = new HashSet<>();
-        pair.add(aCode);
-        pair.add(bCode);
-        Map<String, HeadToHeadStats> h2h = computeHeadToHeadMap(pair, uniqueResults);
-        HeadToHeadStats ha = h2h.getOrDefault(aCode, new HeadToHeadStats());
-        HeadToHeadStats hb = h2h.getOrDefault(bCode, new HeadToHeadStats());
-
-        boolean tiedOnH2HPoints = ha.points == hb.points;
-        boolean tiedOnH2HGoalDiff = ha.goalDifference() == hb.goalDifference();
+        boolean tiedOnHeadToHead = headToHead.pairTied(teamIndex.get(aCode), teamIndex.get(bCode));
         boolean tiedOnOverallGoalDiff = Objects.equals(a.getGoalDifference(), b.getGoalDifference());
 
-        return tiedOnH2HPoints && tiedOnH2HGoalDiff && tiedOnOverallGoalDiff;
+        return tiedOnHeadToHead && tiedOnOverallGoalDiff;
     }
 
-    private static void assignPositions(List<LeagueStandingsEntry> sortedStandings, List<MatchResult> uniqueResults) {
+    private static void assignPositions(List<LeagueStandingsEntry> sortedStandings,
+                                        Map<String, Integer> teamIndex,
+                                        HeadToHeadMatrix headToHead) {
         if (sortedStandings == null || sortedStandings.isEmpty()) {
             return;
         }
@@ -274,7 +227,7 @@ public class TableCalculationsService {
 
             LeagueStandingsEntry previousEntry = sortedStandings.get(index - 1);
 
-            if (areTied(currentEntry, previousEntry, uniqueResults)) {
+            if (areTied(currentEntry, previousEntry, teamIndex, headToHead)) {
                 // ex aequo - ta sama pozycja
                 currentEntry.setPosition(previousEntry.getPosition());
             } else {
@@ -298,11 +251,6 @@ public class TableCalculationsService {
 
     private static class HeadToHeadStats {
         int points = 0;
-        int goalsFor = 0;
-        int goalsAgainst = 0;
-
-        int goalDifference() {
-            return goalsFor - goalsAgainst;
-        }
+        int goalDifference = 0;
     }
 }
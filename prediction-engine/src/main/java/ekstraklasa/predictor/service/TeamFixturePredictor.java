@@ -99,6 +99,14 @@ public class TeamFixturePredictor {
     public static MatchProbability predictFixtureFromClubMap(Map<FootballClub, Double> teamStrengthByClub,
                                                             MatchFixture fixture,
                                                             Map<String, Integer> previousMeetingFlag) {
+        return predictFixture(toStrengthByCode(teamStrengthByClub), fixture, previousMeetingFlag);
+    }
+
+    /**
+     * Converts the strength map keyed by FootballClub objects to a teamCode->strength map.
+     * Entries without a club code or strength are skipped.
+     */
+    public static Map<String, Double> toStrengthByCode(Map<FootballClub, Double> teamStrengthByClub) {
         Map<String, Double> byCode = new HashMap<>();
         if (teamStrengthByClub != null) {
             for (Map.Entry<FootballClub, Double> e : teamStrengthByClub.entrySet()) {
@@ -108,7 +116,7 @@ public class TeamFixturePredictor {
                 }
             }
         }
-        return predictFixture(byCode, fixture, previousMeetingFlag);
+        return byCode;
     }
 
     private static String pairKey(String home, String away) {
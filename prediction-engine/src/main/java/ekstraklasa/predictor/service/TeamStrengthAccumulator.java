@@ -0,0 +1,49 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Inkrementalne liczenie siły drużyn z kolejnych wyników (np. z CSVFileReader.stream) - wynik taki sam
+ * jak TeamStrengthCalculationService.calculateAllTeamsStrength na pełnej liście.
+ *
+ * Trzyma tylko ostatnie RECENCY_WINDOW zakończonych meczów każdej drużyny i jej punkty sezonowe,
+ * więc pamięć nie zależy od długości pliku. Wyniki muszą przychodzić chronologicznie.
+ */
+public final class TeamStrengthAccumulator {
+
+    private final Map<String, ArrayDeque<MatchResult>> recentByTeam = new HashMap<>();
+    private final Map<String, Integer> seasonPoints = new HashMap<>();
+
+    public void accept(MatchResult match) {
+        if (match == null || !match.isFinished()) return;
+
+        remember(match.getHomeTeamCode(), match);
+        if (!Objects.equals(match.getHomeTeamCode(), match.getAwayTeamCode())) {
+            remember(match.getAwayTeamCode(), match);
+        }
+        TeamStrengthCalculationService.addSeasonPoints(seasonPoints, match);
+    }
+
+    public Map<FootballClub, Double> strengths(List<FootballClub> clubs) {
+        Map<String, List<MatchResult>> recent = new HashMap<>();
+        recentByTeam.forEach((code, matches) -> recent.put(code, new ArrayList<>(matches)));
+        return TeamStrengthCalculationService.combineStrengths(clubs, recent, seasonPoints);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private void remember(String teamCode, MatchResult match) {
+        if (teamCode == null) return;
+        ArrayDeque<MatchResult> matches = recentByTeam.computeIfAbsent(teamCode, k -> new ArrayDeque<>());
+        if (matches.size() == TeamStrengthCalculationService.RECENCY_WINDOW) matches.removeFirst();
+        matches.addLast(match);
+    }
+}
@@ -26,7 +26,7 @@ import java.util.stream.Collectors;
 public class TeamStrengthCalculationService {
 
     // --- Konfiguracja / wagi metryk (możesz zmieniać aby dopasować model) ---
-    private static final int RECENCY_WINDOW = 8; // ile ostatnich meczów wziąć mocniej pod uwagę
+    static final int RECENCY_WINDOW = 8; // ile ostatnich meczów wziąć mocniej pod uwagę
     private static final double RECENCY_WEIGHT_FACTOR = 0.15; // maksymalny dodatkowy mnożnik dla najnowszego meczu (np. 0.6 -> 1.6x)
 
     // Wagi poszczególnych metryk w ostatecznym composite score (powinny sumować się do około 1.0 jeśli wszystkie pozytywne)
@@ -51,8 +51,20 @@ public class TeamStrengthCalculationService {
 
 
     public static Map<FootballClub, Double> calculateAllTeamsStrength(List<FootballClub> clubs, List<MatchResult> allMatches) {
-        // Obliczamy punkty sezonowe dla każdej drużyny
-        Map<String, Integer> seasonPointsByCode = computeSeasonPoints(allMatches);
+        TeamStrengthAccumulator accumulator = new TeamStrengthAccumulator();
+        if (allMatches != null) allMatches.forEach(accumulator::accept);
+        return accumulator.strengths(clubs);
+    }
+
+    /**
+     * Łączy wynik z ostatnich meczów drużyny z wyceną rynkową i punktami sezonowymi.
+     *
+     * @param recentMatchesByCode ostatnie zakończone mecze każdej drużyny (chronologicznie)
+     * @param seasonPointsByCode punkty sezonowe drużyn
+     */
+    static Map<FootballClub, Double> combineStrengths(List<FootballClub> clubs,
+                                                      Map<String, List<MatchResult>> recentMatchesByCode,
+                                                      Map<String, Integer> seasonPointsByCode) {
         int maxSeasonPoints = seasonPointsByCode.values().stream().mapToInt(Integer::intValue).max().orElse(0);
 
         // Obliczamy maksymalną wycenę w dostępnych stałych
@@ -60,7 +72,7 @@ public class TeamStrengthCalculationService {
 
         Map<FootballClub, Double> strengthMap = new HashMap<>();
         for (FootballClub club : clubs) {
-            double baseMatchScore = calculateTeamStrength(club.getCode(), allMatches);
+            double baseMatchScore = calculateTeamStrength(club.getCode(), recentMatchesByCode.getOrDefault(club.getCode(), List.of()));
 
             // Normalizujemy punkty sezonowe
             int clubPoints = seasonPointsByCode.getOrDefault(club.getCode(), 0);
@@ -274,31 +286,25 @@ public class TeamStrengthCalculationService {
         return v;
     }
 
-    private static Map<String, Integer> computeSeasonPoints(List<MatchResult> allMatches) {
-        Map<String, Integer> points = new HashMap<>();
-        if (allMatches == null) return points;
-
-        for (MatchResult match : allMatches) {
-            if (!match.isFinished()) continue;
-            if (match.getHomeGoals() == null || match.getAwayGoals() == null) continue;
-
-            String home = match.getHomeTeamCode();
-            String away = match.getAwayTeamCode();
-            int hg = match.getHomeGoals();
-            int ag = match.getAwayGoals();
-
-            if (hg > ag) {
-                points.put(home, points.getOrDefault(home, 0) + 3);
-                points.put(away, points.getOrDefault(away, 0) + 0);
-            } else if (hg < ag) {
-                points.put(home, points.getOrDefault(home, 0) + 0);
-                points.put(away, points.getOrDefault(away, 0) + 3);
-            } else {
-                points.put(home, points.getOrDefault(home, 0) + 1);
-                points.put(away, points.getOrDefault(away, 0) + 1);
-            }
+    static void addSeasonPoints(Map<String, Integer> points, MatchResult match) {
+        if (!match.isFinished()) return;
+        if (match.getHomeGoals() == null || match.getAwayGoals() == null) return;
+
+        String home = match.getHomeTeamCode();
+        String away = match.getAwayTeamCode();
+        int hg = match.getHomeGoals();
+        int ag = match.getAwayGoals();
+
+        if (hg > ag) {
+            points.put(home, points.getOrDefault(home, 0) + 3);
+            points.put(away, points.getOrDefault(away, 0) + 0);
+        } else if (hg < ag) {
+            points.put(home, points.getOrDefault(home, 0) + 0);
+            points.put(away, points.getOrDefault(away, 0) + 3);
+        } else {
+            points.put(home, points.getOrDefault(home, 0) + 1);
+            points.put(away, points.getOrDefault(away, 0) + 1);
         }
-        return points;
     }
 
     /**
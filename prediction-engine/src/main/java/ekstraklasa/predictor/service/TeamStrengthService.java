@@ -1,9 +1,10 @@
 package ekstraklasa.predictor.service;
 
-import ekstraklasa.predictor.entity.TeamStrengthEntity;
+import ekstraklasa.predictor.entity.TeamStrengthEntry;
+import ekstraklasa.predictor.entity.TeamStrengthSnapshotEntity;
 import ekstraklasa.predictor.model.FootballClub;
 import ekstraklasa.predictor.reader.CSVFileReader;
-import ekstraklasa.predictor.repository.TeamStrengthRepository;
+import ekstraklasa.predictor.repository.TeamStrengthSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -19,36 +20,41 @@ import java.util.Map;
 @Service
 @RequiredArgsConstructor
 public class TeamStrengthService {
-    private final TeamStrengthRepository teamStrengthRepository;
-    public void calculateWithFile(CSVFileReader.ReadResult read) {
+    private final TeamStrengthSnapshotRepository teamStrengthSnapshotRepository;
+    /**
+     * @return zapisany snapshot albo null, gdy nie było czego zapisać
+     */
+    public TeamStrengthSnapshotEntity calculateWithFile(CSVFileReader.ReadResult read) {
         Map<FootballClub, Double> strengths = TeamStrengthCalculationService.calculateAllTeamsStrength(read.clubs, read.results);
         if (strengths.isEmpty()) {
             log.info("No team strengths calculated - nothing to save");
-            return;
+            return null;
         }
 
         Instant ts = Instant.now();
-        List<TeamStrengthEntity> entities = new ArrayList<>();
+        List<TeamStrengthEntry> entries = new ArrayList<>();
         for (Map.Entry<FootballClub, Double> e : strengths.entrySet()) {
             FootballClub club = e.getKey();
             Double strength = e.getValue();
             if (club == null || club.getCode() == null) continue;
-            TeamStrengthEntity ent = TeamStrengthEntity.builder()
+            TeamStrengthEntry ent = TeamStrengthEntry.builder()
                     .footballClubCode(club.getCode())
-                    .timestamp(ts)
                     .strength(strength)
                     .build();
-            entities.add(ent);
+            entries.add(ent);
         }
 
-        if (entities.isEmpty()) {
+        if (entries.isEmpty()) {
             log.info("No team strength entities to save");
-            return;
+            return null;
         }
 
-        teamStrengthRepository.saveAll(entities);
-        log.info("Saved {} team strength records to repository", entities.size());
-
+        TeamStrengthSnapshotEntity saved = teamStrengthSnapshotRepository.insert(TeamStrengthSnapshotEntity.builder()
+                .timestamp(ts)
+                .strengths(entries)
+                .build());
+        log.info("Saved team strength snapshot with {} records to repository", entries.size());
+        return saved;
     }
 }
 
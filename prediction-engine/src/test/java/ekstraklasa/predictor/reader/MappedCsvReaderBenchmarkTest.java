@@ -0,0 +1,89 @@
+package ekstraklasa.predictor.reader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Porównanie czasu readFromPath (MappedCsvReader) i opencsv na pliku wbudowanym powielonym REPLICAS razy.
+ * Tylko na żądanie: mvn test -Dtest=MappedCsvReaderBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MappedCsvReaderBenchmarkTest {
+
+    private static final int REPLICAS = 100;
+    private static final int WARMUP_RUNS = 5;
+    private static final int RUNS = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mappedReaderAgainstOpenCsv() throws IOException {
+        Path csv = replicatedFile();
+
+        long[] openCsv = new long[RUNS];
+        long[] mapped = new long[RUNS];
+        int rows = 0;
+        for (int run = -WARMUP_RUNS; run < RUNS; run++) {
+            long start = System.nanoTime();
+            CSVFileReader.ReadResult expected;
+            try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+                 Stream<CSVFileReader.ParsedRow> parsed = CSVFileReader.stream(reader)) {
+                expected = CSVFileReader.collect(parsed);
+            }
+            long middle = System.nanoTime();
+            CSVFileReader.ReadResult actual = CSVFileReader.readFromPath(csv);
+            long end = System.nanoTime();
+
+            assertEquals(expected.results.size(), actual.results.size());
+            rows = actual.results.size();
+            if (run >= 0) {
+                openCsv[run] = middle - start;
+                mapped[run] = end - middle;
+            }
+        }
+
+        Arrays.sort(openCsv);
+        Arrays.sort(mapped);
+        log.info("readFromPath on {} rows ({} bytes), best / median of {} runs: opencsv {} / {} ms, mapped {} / {} ms",
+                rows, Files.size(csv), RUNS, millis(openCsv[0]), millis(openCsv[RUNS / 2]), millis(mapped[0]), millis(mapped[RUNS / 2]));
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private Path replicatedFile() throws IOException {
+        byte[] bundled;
+        try (InputStream in = Objects.requireNonNull(getClass().getResourceAsStream("/ekstraklasa-results.csv"))) {
+            bundled = in.readAllBytes();
+        }
+        String content = new String(bundled, StandardCharsets.UTF_8);
+        int headerEnd = content.indexOf('\n') + 1;
+        String body = content.substring(headerEnd);
+        if (!body.endsWith("\n")) body += "\n";
+
+        Path csv = dir.resolve("replicated.csv");
+        StringBuilder replicated = new StringBuilder(content.substring(0, headerEnd));
+        for (int i = 0; i < REPLICAS; i++) replicated.append(body);
+        Files.writeString(csv, replicated, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,221 @@
+package ekstraklasa.predictor.reader;
+
+import com.opencsv.CSVReader;
+import ekstraklasa.predictor.model.MatchResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MappedCsvReader (readFromPath) musi dawać ten sam ReadResult co opencsv (stream(Reader)),
+ * a szybkie ścieżki liczb i dat - te same wartości co Integer.valueOf, Double.valueOf i Instant.parse.
+ */
+class MappedCsvReaderTest {
+
+    private static final String RESOURCE_CSV = "/ekstraklasa-results.csv";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void bundledFileParsesTheSameAsOpenCsv() throws IOException {
+        Path csv = dir.resolve("bundled.csv");
+        try (var in = Objects.requireNonNull(getClass().getResourceAsStream(RESOURCE_CSV))) {
+            Files.copy(in, csv);
+        }
+
+        assertSameResult(openCsv(csv), CSVFileReader.readFromPath(csv));
+    }
+
+    @Test
+    void editedFileParsesTheSameAsOpenCsv() throws IOException {
+        List<String[]> rows = bundledRows();
+        String[] header = rows.get(0);
+        int roundName = indexOf(header, "roundName");
+        int pageUrl = indexOf(header, "pageUrl");
+        int utcTime = indexOf(header, "utcTime");
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i).clone();
+            boolean quoteAll = false;
+            if (i > 0) {
+                switch (i % 7) {
+                    // cudzysłów, przecinek i rekord wielowierszowy
+                    case 1 -> row[roundName] = "Runda \"" + i + "\", część 1\nczęść 2";
+                    // komórki "338 (81%)", dopełnione spacjami, ze znakiem i przepełnione
+                    case 2 -> editStats(header, row, i);
+                    case 3 -> row[utcTime] = row[utcTime].replace("Z", ".5Z");
+                    case 4 -> quoteAll = true;
+                    // backslash - znak escape w opencsv
+                    case 5 -> row[pageUrl] = row[pageUrl] + "\\x";
+                    case 6 -> row[utcTime] = row[utcTime].replace("Z", "+01:00");
+                    default -> {
+                    }
+                }
+            }
+            content.append(line(row, quoteAll)).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        // krótki wiersz i wiersz pusty są pomijane przez oba readery
+        content.append("x,y\r\n\n");
+        Path csv = dir.resolve("edited.csv");
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+
+        CSVFileReader.ReadResult mapped = CSVFileReader.readFromPath(csv);
+        assertSameResult(openCsv(csv), mapped);
+        assertTrue(mapped.fixtures.stream().anyMatch(f -> f.getRoundName() != null && f.getRoundName().contains("\n")),
+                "multi-line record was not read as one field");
+        assertTrue(mapped.results.stream().map(MatchResult::getHomeMatchStats).anyMatch(s -> s.getFouls() == null),
+                "\"338 (81%)\" cell was not rejected");
+    }
+
+    @Test
+    void intFastPathMatchesIntegerValueOf() throws IOException {
+        List<String> values = new ArrayList<>(List.of(
+                "0", "7", "-3", "+5", "007", " 12 ", "123456789", "1234567890", "2147483647", "2147483648",
+                "-2147483648", "-2147483649", "1.0", "12a", "-", "+", "338 (81%)", "45%", "1e3", "٣"));
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) values.add(Integer.toString(random.nextInt()));
+
+        assertParsedLike(values, CsvRow::intValue, v -> Integer.valueOf(v));
+    }
+
+    @Test
+    void doubleFastPathMatchesDoubleValueOf() throws IOException {
+        List<String> values = new ArrayList<>(List.of(
+                "0", "-0", "2.47", "-0.5", "+1.25", "0.1", "0.30000000000000004", ".5", "5.", "1.2.3",
+                "123456789012345", "1234567890123456", "0.000000000000001", "99999999999999.9", "1e3", "1d",
+                "NaN", "Infinity", "0x10", " 3.25 ", "338 (81%)", "61%"));
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 50_000; i++) {
+            // do 15 cyfr z losową pozycją kropki - zakres szybkiej ścieżki
+            int digits = 1 + random.nextInt(15);
+            StringBuilder value = new StringBuilder(random.nextBoolean() ? "" : "-");
+            int dot = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == dot && d > 0) value.append('.');
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            values.add(value.toString());
+        }
+
+        assertParsedLike(values, CsvRow::doubleValue, v -> Double.valueOf(v));
+    }
+
+    @Test
+    void instantFastPathMatchesInstantParse() throws IOException {
+        List<String> values = new ArrayList<>(List.of(
+                "2025-08-01T18:00:00Z", "2025-08-01T18:00:00.5Z", "2025-08-01T18:00:00.123456789Z",
+                "2025-08-01T18:00:00.Z", "2025-08-01T18:00:00.1234567890Z", "2024-02-29T00:00:00Z",
+                "2023-02-29T00:00:00Z", "2025-13-01T00:00:00Z", "2025-08-01T24:00:00Z", "2025-08-01T23:59:60Z",
+                "2025-08-01T18:00:00+01:00", "2025-08-01 18:00:00Z", "2025-08-01T18:00Z", "0000-01-01T00:00:00Z",
+                "+12025-08-01T18:00:00Z", "2025-8-01T18:00:00Z", "garbage"));
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 10_000; i++) {
+            values.add(Instant.ofEpochSecond(random.nextLong(4_102_444_800L), random.nextInt(1_000_000_000)).toString());
+        }
+
+        assertParsedLike(values, CsvRow::instant, Instant::parse);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static CSVFileReader.ReadResult openCsv(Path csv) throws IOException {
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             Stream<CSVFileReader.ParsedRow> rows = CSVFileReader.stream(reader)) {
+            return CSVFileReader.collect(rows);
+        }
+    }
+
+    private static void assertSameResult(CSVFileReader.ReadResult expected, CSVFileReader.ReadResult actual) {
+        assertEquals(expected.fixtures, actual.fixtures);
+        assertEquals(expected.results, actual.results);
+        assertEquals(expected.clubs, actual.clubs);
+    }
+
+    private interface Column<T> {
+        T read(CsvRow row, int column);
+    }
+
+    /**
+     * Każda wartość w osobnym wierszu jednokolumnowego pliku - odczyt MappedCsvReader porównany z parserem JDK
+     * na przyciętym tekście (wyjątek = null, jak w CSVFileReader.tryParse*).
+     */
+    private <T> void assertParsedLike(List<String> values, Column<T> column, Function<String, T> jdk) throws IOException {
+        Path csv = dir.resolve("values.csv");
+        Files.writeString(csv, "v\n" + String.join("\n", values) + "\n", StandardCharsets.UTF_8);
+
+        try (MappedCsvReader reader = MappedCsvReader.open(csv)) {
+            reader.header();
+            for (String value : values) {
+                CsvRow row = reader.next();
+                T expected;
+                try {
+                    expected = value.trim().isEmpty() ? null : jdk.apply(value.trim());
+                } catch (RuntimeException e) {
+                    expected = null;
+                }
+                assertEquals(expected, column.read(row, 0), "value '" + value + "'");
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    private static void editStats(String[] header, String[] row, int i) {
+        String[] variants = {"338 (81%)", " 12 ", "+4", "-0", "2147483648", "1e2", "", "07"};
+        int variant = 0;
+        for (int c = 0; c < header.length; c++) {
+            if (header[c].endsWith("__home") || header[c].endsWith("__away")) {
+                row[c] = variants[(i + variant++) % variants.length];
+            }
+        }
+        row[indexOf(header, "fouls__home")] = "338 (81%)";
+    }
+
+    private static String line(String[] row, boolean quoteAll) {
+        StringBuilder line = new StringBuilder();
+        for (int c = 0; c < row.length; c++) {
+            if (c > 0) line.append(',');
+            String cell = row[c];
+            if (quoteAll || cell.contains(",") || cell.contains("\"") || cell.contains("\n")) {
+                line.append('"').append(cell.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(cell);
+            }
+        }
+        return line.toString();
+    }
+
+    private static List<String[]> bundledRows() throws IOException {
+        try (CSVReader csv = new CSVReader(new InputStreamReader(
+                Objects.requireNonNull(MappedCsvReaderTest.class.getResourceAsStream(RESOURCE_CSV)), StandardCharsets.UTF_8))) {
+            return csv.readAll();
+        } catch (com.opencsv.exceptions.CsvException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(column)) return i;
+        }
+        throw new IllegalArgumentException(column);
+    }
+}
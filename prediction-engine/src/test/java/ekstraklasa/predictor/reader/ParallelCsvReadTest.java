@@ -0,0 +1,117 @@
+package ekstraklasa.predictor.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * readFromPath(path, parallelism) dzieli plik na granicach rekordów (recordBoundaries) - wynik musi być
+ * taki sam jak przy czytaniu sekwencyjnym, także gdy wyliczony punkt podziału wypada w środku
+ * wielowierszowego rekordu w cudzysłowie.
+ */
+class ParallelCsvReadTest {
+
+    // wiersze wyglądające jak osobne rekordy - naiwny podział po \n zacząłby część w środku pola
+    private static final String MULTI_LINE = "\"Runda\nM-999,1,\"\"fake\"\",x\n" + "y,z\n".repeat(200) + "koniec\"";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chunkedReadEqualsSequentialReadWhenBoundaryFallsInsideQuotedRecord() throws IOException {
+        String[] bundled = bundledHeaderAndBody();
+        String record = multiLineRecord(bundled[1]);
+        // ta sama liczba bajtów przed i za rekordem - punkt podziału na 2 części wypada w jego środku
+        String half = bundled[1].repeat(50);
+        Path csv = dir.resolve("archive.csv");
+        Files.writeString(csv, bundled[0] + half + record + half, StandardCharsets.UTF_8);
+
+        int headerBytes = bundled[0].getBytes(StandardCharsets.UTF_8).length;
+        int halfBytes = half.getBytes(StandardCharsets.UTF_8).length;
+        int recordBytes = record.getBytes(StandardCharsets.UTF_8).length;
+        int[] boundaries;
+        try (MappedCsvReader reader = MappedCsvReader.open(csv)) {
+            reader.header();
+            boundaries = reader.recordBoundaries(2);
+        }
+        long naiveSplit = headerBytes + (Files.size(csv) - headerBytes) / 2;
+        assertTrue(naiveSplit > headerBytes + halfBytes && naiveSplit < headerBytes + halfBytes + recordBytes,
+                "test file does not put the computed split inside the quoted record");
+        assertEquals(headerBytes + halfBytes + recordBytes, boundaries[1]);
+
+        CSVFileReader.ReadResult sequential = CSVFileReader.readFromPath(csv);
+        CSVFileReader.ReadResult chunked = CSVFileReader.readFromPath(csv, 4);
+
+        assertEquals(sequential.fixtures, chunked.fixtures);
+        assertEquals(sequential.results, chunked.results);
+        assertEquals(sequential.clubs, chunked.clubs);
+        assertTrue(chunked.results.stream().anyMatch(r -> r.getMatchId().endsWith("-straddling")));
+    }
+
+    @Test
+    void everySliceStartsAtARecord() throws IOException {
+        String[] bundled = bundledHeaderAndBody();
+        String[] rows = bundled[1].split("\n");
+        StringBuilder content = new StringBuilder(bundled[0]);
+        for (int i = 0; i < rows.length; i++) {
+            content.append(i % 5 == 0 ? multiLineRecord(rows[i] + "\n") : rows[i] + "\n");
+        }
+        Path csv = dir.resolve("small.csv");
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+
+        List<String> sequential = matchIds(csv, 1);
+        for (int parts : new int[]{2, 3, 7, 16, 64}) {
+            assertEquals(sequential, matchIds(csv, parts), parts + " parts");
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    /**
+     * matchId kolejnych rekordów czytanych częściami z recordBoundaries(parts).
+     */
+    private static List<String> matchIds(Path csv, int parts) throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (MappedCsvReader reader = MappedCsvReader.open(csv)) {
+            reader.header();
+            int[] boundaries = reader.recordBoundaries(parts);
+            for (int i = 0; i < parts; i++) {
+                try (MappedCsvReader slice = reader.slice(boundaries[i], boundaries[i + 1])) {
+                    CsvRow row;
+                    while ((row = slice.next()) != null) ids.add(row.text(0));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // pierwszy wiersz z roundName zamienionym na wielowierszowe pole w cudzysłowie
+    private static String multiLineRecord(String rows) {
+        String first = rows.substring(0, rows.indexOf('\n'));
+        String[] cells = first.split(",", -1);
+        cells[0] = cells[0] + "-straddling";
+        cells[2] = MULTI_LINE;
+        return String.join(",", cells) + "\n";
+    }
+
+    private String[] bundledHeaderAndBody() throws IOException {
+        String content;
+        try (InputStream in = Objects.requireNonNull(getClass().getResourceAsStream("/ekstraklasa-results.csv"))) {
+            content = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+        int headerEnd = content.indexOf('\n') + 1;
+        String body = content.substring(headerEnd);
+        return new String[]{content.substring(0, headerEnd), body.endsWith("\n") ? body : body + "\n"};
+    }
+}
@@ -0,0 +1,96 @@
+package ekstraklasa.predictor.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshoty nazwane hashem treści: ten sam plik pod inną nazwą trafia w istniejący snapshot,
+ * a prune zostawia tylko ostatnio zapisane albo użyte.
+ */
+class ReadResultSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameContentUnderAnotherNameReusesTheSnapshot() throws IOException {
+        Path snapshots = dir.resolve("snapshots");
+        Path first = bundledCopy("first.csv");
+        Path renamed = bundledCopy("renamed.csv");
+
+        CSVFileReader.ReadResult parsed = CSVFileReader.readFromPath(first, 1, snapshots, null);
+        CSVFileReader.ReadResult cached = CSVFileReader.readFromPath(renamed, 1, snapshots, null);
+
+        assertEquals(1, snapshotFiles(snapshots).size());
+        assertEquals(parsed.results, cached.results);
+        assertEquals(parsed.fixtures, cached.fixtures);
+        assertEquals(parsed.clubs, cached.clubs);
+    }
+
+    @Test
+    void pruneKeepsMostRecentlyUsedSnapshots() throws IOException {
+        Path snapshots = Files.createDirectories(dir.resolve("snapshots"));
+        Path oldest = snapshot(snapshots, "a", 1_000);
+        Path middle = snapshot(snapshots, "b", 2_000);
+        Path newest = snapshot(snapshots, "c", 3_000);
+        Path other = Files.writeString(snapshots.resolve("notes.txt"), "x");
+
+        ReadResultSnapshot.prune(snapshots, 2);
+
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(middle));
+        assertTrue(Files.exists(newest));
+        assertTrue(Files.exists(other));
+    }
+
+    @Test
+    void snapshotHitCountsAsRecentUse() throws IOException {
+        Path snapshots = dir.resolve("snapshots");
+        Path csv = bundledCopy("season.csv");
+        CSVFileReader.readFromPath(csv, 1, snapshots, null);
+        Path used = snapshotFiles(snapshots).getFirst();
+        Files.setLastModifiedTime(used, FileTime.fromMillis(1_000));
+        Path newer = snapshot(snapshots, "b", 2_000);
+
+        CSVFileReader.readFromPath(csv, 1, snapshots, null);
+        ReadResultSnapshot.prune(snapshots, 1);
+
+        assertTrue(Files.exists(used));
+        assertFalse(Files.exists(newer));
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private Path bundledCopy(String name) throws IOException {
+        try (InputStream in = Objects.requireNonNull(getClass().getResourceAsStream("/ekstraklasa-results.csv"))) {
+            Path csv = dir.resolve(name);
+            Files.copy(in, csv);
+            return csv;
+        }
+    }
+
+    private static Path snapshot(Path snapshots, String name, long modifiedMillis) throws IOException {
+        Path snapshot = Files.writeString(snapshots.resolve(name + ReadResultSnapshot.SUFFIX), name);
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(modifiedMillis));
+        return snapshot;
+    }
+
+    private static List<Path> snapshotFiles(Path snapshots) throws IOException {
+        try (Stream<Path> files = Files.list(snapshots)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(ReadResultSnapshot.SUFFIX)).toList();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.service.ConsumableIngestQueue.Entry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dziennik kolejki: odtworzenie stanu po restarcie, kompakcja i kolejka działająca dalej,
+ * gdy kompakcja się nie powiedzie.
+ */
+class ConsumableIngestQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<ConsumableIngestQueue> queues = new ArrayList<>();
+
+    @AfterEach
+    void closeQueues() throws IOException {
+        for (ConsumableIngestQueue queue : queues) {
+            queue.close();
+        }
+    }
+
+    @Test
+    void restartRestoresQueueFromJournal() throws Exception {
+        Path journal = dir.resolve("queue.log");
+        Path a = csv("a.csv");
+        Path b = csv("b.csv");
+        Path c = csv("c.csv");
+        Path d = csv("d.csv");
+
+        ConsumableIngestQueue queue = queue(journal, 1000);
+        queue.enqueue(a);
+        queue.enqueue(b);
+        queue.enqueue(c);
+        queue.enqueue(d);
+        queue.complete(queue.take().input());
+        // przerwane restartem - STARTED bez DONE
+        queue.take();
+        queue.close();
+        Files.writeString(d, "modified after it was queued");
+
+        ConsumableIngestQueue restarted = queue(journal, 1000);
+
+        assertEquals(List.of(b, c), drain(restarted, 2));
+        assertFalse(restarted.enqueue(a).isPresent());
+        assertFalse(Files.exists(a), "file consumed before the restart is deleted, not processed again");
+    }
+
+    @Test
+    void compactionKeepsOnlyCurrentState() throws Exception {
+        Path journal = dir.resolve("queue.log");
+        ConsumableIngestQueue queue = queue(journal, 4);
+
+        List<Path> consumed = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Path file = csv("consumed-" + i + ".csv");
+            queue.enqueue(file);
+            queue.complete(queue.take().input());
+            consumed.add(file);
+        }
+        // kompakcja w trakcie przetwarzania - przerwane wejście nie może zniknąć z dziennika
+        Path started = csv("started.csv");
+        queue.enqueue(started);
+        queue.take();
+        Path waiting = csv("waiting.csv");
+        queue.enqueue(waiting);
+        queue.close();
+
+        // bez kompakcji 33 linie; po niej zakończone raz, przerwane dwie linie, oczekujące jedna (+ mniej niż 4 dopisane)
+        assertTrue(Files.readAllLines(journal).size() < consumed.size() + 3 + 4);
+
+        ConsumableIngestQueue restarted = queue(journal, 4);
+        assertEquals(List.of(started, waiting), drain(restarted, 2));
+        for (Path file : consumed) {
+            assertFalse(restarted.enqueue(file).isPresent());
+        }
+    }
+
+    @Test
+    void failedCompactionLeavesJournalWritable() throws Exception {
+        Path journal = dir.resolve("queue.log");
+        ConsumableIngestQueue queue = queue(journal, 2);
+        // katalog dziennika jest zwykłym plikiem - createDirectories w kompakcji zawsze się nie powiedzie
+        Path notADirectory = Files.writeString(dir.resolve("not-a-directory"), "");
+        ReflectionTestUtils.setField(queue, "journalPath", notADirectory.resolve("queue.log").toString());
+
+        List<Path> consumed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Path file = csv("consumed-" + i + ".csv");
+            queue.enqueue(file);
+            queue.complete(queue.take().input());
+            consumed.add(file);
+        }
+        Path waiting = csv("waiting.csv");
+        assertTrue(queue.enqueue(waiting).isPresent());
+
+        // następna kompakcja (po przywróceniu ścieżki) się udaje
+        ReflectionTestUtils.setField(queue, "journalPath", journal.toString());
+        Path last = csv("last.csv");
+        queue.enqueue(last);
+        queue.close();
+
+        ConsumableIngestQueue restarted = queue(journal, 2);
+        assertEquals(List.of(waiting, last), drain(restarted, 2));
+        for (Path file : consumed) {
+            assertFalse(restarted.enqueue(file).isPresent());
+        }
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private ConsumableIngestQueue queue(Path journal, int compactAfterRecords) throws IOException {
+        ConsumableIngestQueue queue = new ConsumableIngestQueue();
+        ReflectionTestUtils.setField(queue, "journalPath", journal.toString());
+        ReflectionTestUtils.setField(queue, "compactAfterRecords", compactAfterRecords);
+        queue.recover();
+        queues.add(queue);
+        return queue;
+    }
+
+    private Path csv(String name) throws IOException {
+        return Files.writeString(dir.resolve(name), name).toAbsolutePath();
+    }
+
+    // pobiera count wejść w kolejności kolejki, kończąc każde
+    private static List<Path> drain(ConsumableIngestQueue queue, int count) throws InterruptedException {
+        List<Path> taken = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // take() czekałby bez końca
+            assertTrue(queue.nextJob().isPresent(), "queue has fewer inputs than expected");
+            Entry entry = queue.take();
+            taken.add(entry.input().path());
+            queue.complete(entry.input());
+        }
+        assertTrue(queue.nextJob().isEmpty(), "queue has more inputs than expected");
+        return taken;
+    }
+}
@@ -0,0 +1,81 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.LeagueStandingsEntry;
+import ekstraklasa.predictor.model.MatchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static ekstraklasa.predictor.service.LeagueTableKernelTest.baselinePositions;
+import static ekstraklasa.predictor.service.LeagueTableKernelTest.kernelPositions;
+import static ekstraklasa.predictor.service.LeagueTableKernelTest.result;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LeagueTableAccumulatorTest {
+
+    @Test
+    void standingsReadMidStreamDoNotAffectTheFinalTable() {
+        List<MatchResult> results = randomSeason(new SplittableRandom(7), 8);
+        LeagueTableAccumulator accumulator = new LeagueTableAccumulator();
+
+        for (int i = 0; i < results.size(); i++) {
+            accumulator.accept(results.get(i));
+            if (i % 10 == 0) accumulator.standings();
+        }
+
+        assertEquals(baselinePositions(results), positions(accumulator.standings()));
+        assertEquals(kernelPositions(results, List.of()), positions(accumulator.standings()));
+    }
+
+    @Test
+    void duplicatesAndUnfinishedMatchesAreSkipped() {
+        MatchResult unfinished = result("m3", "CRA", "ARK", 5, 0);
+        unfinished.setFinished(false);
+        LeagueTableAccumulator accumulator = new LeagueTableAccumulator();
+        accumulator.accept(result("m1", "ARK", "CRA", 1, 0));
+        accumulator.accept(result("m1", "ARK", "CRA", 1, 0));
+        accumulator.accept(unfinished);
+        accumulator.accept(null);
+
+        Map<String, Integer> points = new HashMap<>();
+        accumulator.standings().forEach(e -> points.put(e.getFootballClub().getCode(), e.getPoints()));
+        assertEquals(Map.of("ARK", 3, "CRA", 0), points);
+    }
+
+    @Test
+    void headToHeadWorksAfterTheMatrixGrows() {
+        // więcej drużyn niż początkowy rozmiar macierzy (32) - remisy rozstrzygane też wśród ostatnich indeksów
+        List<MatchResult> results = randomSeason(new SplittableRandom(11), 40);
+        LeagueTableAccumulator accumulator = new LeagueTableAccumulator();
+        results.forEach(accumulator::accept);
+
+        assertEquals(kernelPositions(results, List.of()), positions(accumulator.standings()));
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static List<MatchResult> randomSeason(SplittableRandom random, int teams) {
+        List<MatchResult> results = new ArrayList<>();
+        for (int home = 0; home < teams; home++) {
+            for (int away = 0; away < teams; away++) {
+                if (home == away) continue;
+                results.add(result("m" + results.size(), code(home), code(away), random.nextInt(3), random.nextInt(3)));
+            }
+        }
+        return results;
+    }
+
+    private static String code(int team) {
+        return "T" + (char) ('A' + team / 26) + (char) ('A' + team % 26);
+    }
+
+    private static Map<String, Integer> positions(List<LeagueStandingsEntry> standings) {
+        Map<String, Integer> positions = new HashMap<>();
+        standings.forEach(e -> positions.put(e.getFootballClub().getCode(), e.getPosition()));
+        return positions;
+    }
+}
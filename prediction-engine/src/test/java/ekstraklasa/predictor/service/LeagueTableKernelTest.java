@@ -0,0 +1,171 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.LeagueStandingsEntry;
+import ekstraklasa.predictor.model.MatchFixture;
+import ekstraklasa.predictor.model.MatchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * LeagueTableKernel (tabela bazowa + symulowane fixtures) musi dawać te same pozycje co
+ * TableCalculationsService na pełnej liście wyników - także przy ex aequo i mini-lidze head-to-head.
+ */
+class LeagueTableKernelTest {
+
+    private static final String[] TEAMS = {"ARK", "CRA", "GKS", "JAG", "LEG", "POG"};
+
+    @Test
+    void headToHeadDecidesBeforeOverallGoalDifference() {
+        List<MatchResult> results = List.of(
+                result("m1", "ARK", "CRA", 1, 0),
+                result("m2", "CRA", "GKS", 6, 0),
+                result("m3", "ARK", "JAG", 0, 0),
+                result("m4", "CRA", "JAG", 0, 0),
+                result("m5", "GKS", "JAG", 0, 0)
+        );
+
+        Map<String, Integer> positions = kernelPositions(results, List.of());
+
+        // ARK i CRA po 4 pkt: CRA ma lepszy bilans bramek, ale przegrała bezpośredni mecz
+        assertEquals(Map.of("ARK", 1, "CRA", 2, "JAG", 3, "GKS", 4), positions);
+        assertEquals(baselinePositions(results), positions);
+    }
+
+    @Test
+    void fullyTiedTeamsShareThePosition() {
+        List<MatchResult> results = List.of(
+                result("m1", "ARK", "CRA", 1, 1),
+                result("m2", "ARK", "GKS", 2, 0),
+                result("m3", "CRA", "GKS", 2, 0)
+        );
+
+        Map<String, Integer> positions = kernelPositions(results, List.of());
+
+        assertEquals(Map.of("ARK", 1, "CRA", 1, "GKS", 3), positions);
+        assertEquals(baselinePositions(results), positions);
+    }
+
+    @Test
+    void threeWayTieUsesTheMiniLeagueOfTheGroup() {
+        // ARK, CRA, GKS po 6 pkt; w mini-lidze ARK 6 pkt, CRA 3, GKS 0 - mimo że GKS ma najlepszy bilans
+        List<MatchResult> results = List.of(
+                result("m1", "ARK", "CRA", 1, 0),
+                result("m2", "ARK", "GKS", 1, 0),
+                result("m3", "CRA", "GKS", 1, 0),
+                result("m4", "GKS", "JAG", 9, 0),
+                result("m5", "GKS", "LEG", 9, 0),
+                result("m6", "CRA", "JAG", 1, 0),
+                result("m7", "LEG", "ARK", 1, 0),
+                result("m8", "JAG", "ARK", 1, 0)
+        );
+
+        Map<String, Integer> positions = kernelPositions(results, List.of());
+
+        assertEquals(1, positions.get("ARK"));
+        assertEquals(2, positions.get("CRA"));
+        assertEquals(3, positions.get("GKS"));
+        assertEquals(baselinePositions(results), positions);
+    }
+
+    @Test
+    void simulatedFixturesGiveTheSameTableAsFinishedResults() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int season = 0; season < 500; season++) {
+            List<MatchResult> schedule = new ArrayList<>();
+            int id = 0;
+            for (String home : TEAMS) {
+                for (String away : TEAMS) {
+                    if (home.equals(away)) continue;
+                    // niskie wyniki - dużo remisów i drużyn z równą liczbą punktów
+                    schedule.add(result("m" + id++, home, away, random.nextInt(3), random.nextInt(3)));
+                }
+            }
+            int played = random.nextInt(schedule.size() + 1);
+            List<MatchResult> base = schedule.subList(0, played);
+            List<MatchResult> simulated = schedule.subList(played, schedule.size());
+
+            assertEquals(baselinePositions(schedule), kernelPositions(base, simulated), "season " + season);
+        }
+    }
+
+    @Test
+    void resetRestoresTheBaseTable() {
+        List<MatchResult> base = List.of(result("m1", "ARK", "CRA", 2, 0));
+        List<MatchFixture> fixtures = List.of(fixture("m2", "CRA", "ARK"));
+        LeagueTableKernel kernel = new LeagueTableKernel(FrozenLeagueTable.of(base, fixtures));
+        int[] positions = new int[kernel.base().teamCount()];
+
+        kernel.applyFixture(0, 5, 0);
+        kernel.computePositions(positions);
+        kernel.reset();
+        kernel.applyFixture(0, 0, 0);
+        kernel.computePositions(positions);
+
+        assertEquals(4, kernel.points(indexOf(kernel.base(), "ARK")));
+        assertEquals(1, kernel.points(indexOf(kernel.base(), "CRA")));
+        assertEquals(1, positions[indexOf(kernel.base(), "ARK")]);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    static MatchResult result(String matchId, String home, String away, int homeGoals, int awayGoals) {
+        MatchResult result = new MatchResult();
+        result.setMatchId(matchId);
+        result.setFinished(true);
+        result.setHomeTeamCode(home);
+        result.setAwayTeamCode(away);
+        result.setHomeGoals(homeGoals);
+        result.setAwayGoals(awayGoals);
+        return result;
+    }
+
+    static Map<String, Integer> baselinePositions(List<MatchResult> results) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (LeagueStandingsEntry entry : TableCalculationsService.calculateLeagueStandings(results)) {
+            positions.put(entry.getFootballClub().getCode(), entry.getPosition());
+        }
+        return positions;
+    }
+
+    // base jako tabela bazowa, simulated jako fixtures nakładane przez kernel
+    static Map<String, Integer> kernelPositions(List<MatchResult> base, List<MatchResult> simulated) {
+        List<MatchFixture> fixtures = simulated.stream()
+                .map(r -> fixture(r.getMatchId(), r.getHomeTeamCode(), r.getAwayTeamCode()))
+                .toList();
+        FrozenLeagueTable table = FrozenLeagueTable.of(base, fixtures);
+        LeagueTableKernel kernel = new LeagueTableKernel(table);
+        for (int i = 0; i < simulated.size(); i++) {
+            kernel.applyFixture(i, simulated.get(i).getHomeGoals(), simulated.get(i).getAwayGoals());
+        }
+
+        int[] positions = new int[table.teamCount()];
+        kernel.computePositions(positions);
+        Map<String, Integer> byCode = new HashMap<>();
+        for (int team = 0; team < table.teamCount(); team++) {
+            byCode.put(table.teamCode(team), positions[team]);
+        }
+        return byCode;
+    }
+
+    private static MatchFixture fixture(String matchId, String home, String away) {
+        MatchFixture fixture = new MatchFixture();
+        fixture.setMatchId(matchId);
+        fixture.setHomeTeamCode(home);
+        fixture.setAwayTeamCode(away);
+        return fixture;
+    }
+
+    private static int indexOf(FrozenLeagueTable table, String code) {
+        for (int team = 0; team < table.teamCount(); team++) {
+            if (table.teamCode(team).equals(code)) return team;
+        }
+        throw new IllegalArgumentException(code);
+    }
+}
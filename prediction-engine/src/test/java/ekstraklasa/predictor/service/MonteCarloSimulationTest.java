@@ -0,0 +1,76 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.SimulationProgress;
+import ekstraklasa.predictor.model.SimulationResult;
+import ekstraklasa.predictor.reader.CSVFileReader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonteCarloSimulationTest {
+
+    private static final long SEED = 20260218L;
+    // nie jest wielokrotnością bloku symulacji - ostatni blok jest niepełny
+    private static final int SIMULATIONS = 2_750;
+
+    private static SimulationInput input;
+
+    @BeforeAll
+    static void loadSeason() throws Exception {
+        input = SimulationInput.of(CSVFileReader.readConstantFile());
+    }
+
+    @Test
+    void sameSeedGivesIdenticalCountsAtAnyParallelism() throws Exception {
+        SimulationResult sequential = MonteCarloSimulation.run(input, SIMULATIONS, 1, SEED, new SimulationProgress());
+
+        for (int parallelism : new int[]{2, 3, 8}) {
+            SimulationResult parallel = MonteCarloSimulation.run(input, SIMULATIONS, parallelism, SEED, new SimulationProgress());
+
+            assertEquals(SIMULATIONS, parallel.getSimulations());
+            assertSameCounts(sequential.getPositionCounts(), parallel.getPositionCounts());
+            assertSameCounts(sequential.getPointsCounts(), parallel.getPointsCounts());
+        }
+    }
+
+    @Test
+    void differentSeedGivesDifferentCounts() throws Exception {
+        SimulationResult first = MonteCarloSimulation.run(input, SIMULATIONS, 2, SEED, new SimulationProgress());
+        SimulationResult second = MonteCarloSimulation.run(input, SIMULATIONS, 2, SEED + 1, new SimulationProgress());
+
+        boolean anyDifference = first.getPositionCounts().entrySet().stream()
+                .anyMatch(e -> !Arrays.equals(e.getValue(), second.getPositionCounts().get(e.getKey())));
+        assertTrue(anyDifference, "different seeds produced identical position counts");
+    }
+
+    @Test
+    void errorIsNotZeroForCertainLookingEstimates() {
+        // każda drużyna zawsze na tym samym miejscu - estymaty top4 i spadku to 0% albo 100%
+        SimulationResult result = new SimulationResult(18);
+        int[] counts = new int[18];
+        for (int position = 0; position < 18; position++) {
+            Arrays.fill(counts, 0);
+            counts[position] = 10;
+            result.addCounts("T" + position, counts);
+        }
+        result.setSimulations(10);
+
+        // T0 zawsze w top4 (100%), T17 nigdy (0%) - błąd Walda byłby zerem
+        assertTrue(result.getRangeStandardError("T0", 1, MonteCarloSimulation.TOP_POSITIONS) > 5.0);
+        assertTrue(result.getRangeStandardError("T17", 1, MonteCarloSimulation.TOP_POSITIONS) > 5.0);
+        assertTrue(MonteCarloSimulation.maxStandardError(result) > 5.0);
+    }
+
+    // --- helper methods -----------------------------------------------------------------
+
+    private static void assertSameCounts(Map<String, int[]> expected, Map<String, int[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((code, counts) -> assertArrayEquals(counts, actual.get(code), code));
+    }
+}
@@ -0,0 +1,33 @@
+package ekstraklasa.predictor.service;
+
+import ekstraklasa.predictor.model.FootballClub;
+import ekstraklasa.predictor.model.MatchResult;
+import ekstraklasa.predictor.reader.CSVFileReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TeamStrengthAccumulatorTest {
+
+    @Test
+    void windowedStrengthsEqualStrengthsFromTheFullResultList() throws Exception {
+        CSVFileReader.ReadResult read = CSVFileReader.readConstantFile();
+
+        // poprzednia implementacja: calculateTeamStrength na wszystkich wynikach (sama wybiera okno)
+        Map<String, List<MatchResult>> allResults = new HashMap<>();
+        Map<String, Integer> seasonPoints = new HashMap<>();
+        for (FootballClub club : read.clubs) allResults.put(club.getCode(), read.results);
+        read.results.forEach(match -> TeamStrengthCalculationService.addSeasonPoints(seasonPoints, match));
+        Map<FootballClub, Double> expected = TeamStrengthCalculationService.combineStrengths(read.clubs, allResults, seasonPoints);
+
+        TeamStrengthAccumulator accumulator = new TeamStrengthAccumulator();
+        read.results.forEach(accumulator::accept);
+
+        assertEquals(expected, accumulator.strengths(read.clubs));
+        assertEquals(expected, TeamStrengthCalculationService.calculateAllTeamsStrength(read.clubs, read.results));
+    }
+}